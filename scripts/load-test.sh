@@ -0,0 +1,66 @@
+#!/usr/bin/env bash
+#
+# Compares requests per second and p99 latency of GET /cashcards between the
+# default platform-thread pool and the virtual-threads profile.
+#
+# Requires 'hey' (https://github.com/rakyll/hey) on the PATH; the
+# virtual-threads run is skipped below Java 21, where the profile has no
+# effect. The test users are migrated in
+# from src/test/resources; seed data is created through the batch endpoint
+# before each run.
+#
+#   scripts/load-test.sh [concurrency...]     default: 1000 2500 5000 10000
+#
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+PORT=${PORT:-8080}
+USER=${CASHCARD_USER:-sarah1}
+PASSWORD=${CASHCARD_PASSWORD:-abc123}
+REQUESTS_PER_CLIENT=${REQUESTS_PER_CLIENT:-20}
+
+if ! command -v hey > /dev/null; then
+    echo "load-test.sh needs hey on the PATH: https://github.com/rakyll/hey" >&2
+    exit 1
+fi
+JAVA_MAJOR=$(java -XshowSettings:properties -version 2>&1 | awk '/java.specification.version/ {print $NF}')
+LEVELS=(${*:-1000 2500 5000 10000})
+
+./mvnw -q -B -DskipTests package
+JAR=$(ls target/cashcard-*.jar | grep -v original | head -n 1)
+
+run() {
+    local mode=$1
+    shift
+
+    java "$@" -jar "$JAR" --server.port="$PORT" \
+        --spring.flyway.locations=classpath:db/migration,classpath:db/users,filesystem:src/test/resources/db/migration,filesystem:src/test/resources/db/users > "target/load-test-$mode.log" 2>&1 &
+    local pid=$!
+
+    until curl -s -o /dev/null "http://localhost:$PORT/actuator/health"; do sleep 0.5; done
+
+    local cards='{"amount": 1.00}'
+    for _ in $(seq 2 100); do cards="$cards,{\"amount\": 1.00}"; done
+    curl -s -u "$USER:$PASSWORD" -H 'Content-Type: application/json' -d "[$cards]" \
+        "http://localhost:$PORT/cashcards/batch" > /dev/null
+
+    for concurrency in "${LEVELS[@]}"; do
+        local result
+        result=$(hey -n $((concurrency * REQUESTS_PER_CLIENT)) -c "$concurrency" \
+            -a "$USER:$PASSWORD" "http://localhost:$PORT/cashcards?size=20")
+        printf '%-10s c=%-6s %s req/s  p99 %s\n' "$mode" "$concurrency" \
+            "$(awk '/Requests\/sec/ {print $2}' <<< "$result")" \
+            "$(awk '/99% in/ {print $3 " " $4}' <<< "$result")"
+    done
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+}
+
+run platform
+if [ "$JAVA_MAJOR" -ge 21 ]; then
+    run virtual -Djdk.tracePinnedThreads=short -Dspring.profiles.active=virtual-threads
+else
+    echo "virtual    skipped: Java $JAVA_MAJOR, virtual threads need 21 or later" >&2
+fi
@@ -0,0 +1,71 @@
+#!/usr/bin/env bash
+#
+# Compares startup time and first request latency of the plain jar, the
+# fast-startup build (Spring AOT and a class data sharing archive) and, when
+# GraalVM's native-image is on the PATH, the native executable.
+#
+# Startup is measured from launch until /actuator/health answers; the first
+# request is an authenticated GET /cashcards right after. The test users and
+# cards are migrated in from src/test/resources.
+#
+#   scripts/startup-test.sh [runs]     default: 5
+#
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+PORT=${PORT:-8080}
+USER=${CASHCARD_USER:-sarah1}
+PASSWORD=${CASHCARD_PASSWORD:-abc123}
+RUNS=${1:-5}
+ARGS=(--server.port="$PORT" --spring.flyway.locations=classpath:db/migration,classpath:db/users,filesystem:src/test/resources/db/migration,filesystem:src/test/resources/db/users)
+
+now_ms() {
+    echo $(($(date +%s%N) / 1000000))
+}
+
+run() {
+    local mode=$1
+    shift
+
+    local startup_total=0 first_request_total=0
+    for i in $(seq 1 "$RUNS"); do
+        local start
+        start=$(now_ms)
+        "$@" "${ARGS[@]}" > "target/startup-test-$mode.log" 2>&1 &
+        local pid=$!
+
+        until curl -s -o /dev/null "http://localhost:$PORT/actuator/health"; do sleep 0.01; done
+        local startup=$(($(now_ms) - start))
+
+        local first_request
+        first_request=$(curl -s -o /dev/null -w '%{time_total}' -u "$USER:$PASSWORD" \
+            "http://localhost:$PORT/cashcards")
+        first_request=$(awk '{printf "%d", $1 * 1000}' <<< "$first_request")
+
+        kill "$pid"
+        wait "$pid" 2>/dev/null || true
+
+        startup_total=$((startup_total + startup))
+        first_request_total=$((first_request_total + first_request))
+    done
+
+    printf '%-13s startup %6d ms  first request %5d ms  (mean of %d)\n' "$mode" \
+        $((startup_total / RUNS)) $((first_request_total / RUNS)) "$RUNS"
+}
+
+./mvnw -q -B -DskipTests package
+mkdir -p target/plain
+cp target/cashcard-0.0.1-SNAPSHOT.jar target/plain/
+
+./mvnw -q -B -DskipTests -Pfast-startup package > target/startup-test-build.log 2>&1
+
+run plain java -jar target/plain/cashcard-0.0.1-SNAPSHOT.jar
+run aot java -Dspring.aot.enabled=true -jar target/fast-startup/cashcard-0.0.1-SNAPSHOT.jar
+run aot+cds java -XX:SharedArchiveFile=target/fast-startup/application.jsa -Dspring.aot.enabled=true \
+    -jar target/fast-startup/cashcard-0.0.1-SNAPSHOT.jar
+
+if command -v native-image > /dev/null; then
+    ./mvnw -q -B -DskipTests -Pnative native:compile > target/startup-test-native-build.log 2>&1
+    run native target/cashcard
+fi
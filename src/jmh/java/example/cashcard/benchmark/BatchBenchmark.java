@@ -0,0 +1,154 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.benchmark;
+
+import jakarta.servlet.Filter;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Writes of {@code items} cards through the security filter chain, as one
+ * single-card request per card against one {@code /cashcards/batch} request.
+ * Each invocation counts its cards in {@code rows}, reported in rows/s.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BatchBenchmark {
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Rows {
+
+        public long rows;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rows = 0;
+        }
+
+    }
+
+    @Param({"10", "500"})
+    int items;
+
+    private ConfigurableApplicationContext context;
+
+    private MockMvc mockMvc;
+
+    private String authorization;
+
+    private List<Long> ids;
+
+    private String card;
+
+    private String createBody;
+
+    private String updateBody;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        BenchmarkApplication.seed(context, items);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                .addFilters(context.getBean("springSecurityFilterChain", Filter.class))
+                .build();
+        authorization = "Basic " + Base64.getEncoder()
+                .encodeToString("sarah1:abc123".getBytes(StandardCharsets.UTF_8));
+
+        ids = context.getBean(JdbcTemplate.class).queryForList(
+                "SELECT id FROM cash_card WHERE owner = ? ORDER BY id DESC LIMIT ?", Long.class,
+                BenchmarkApplication.OWNER, items);
+        card = "{\"amount\": 1.00}";
+        StringJoiner create = new StringJoiner(", ", "[", "]");
+        StringJoiner update = new StringJoiner(", ", "[", "]");
+        for (Long id : ids) {
+            create.add(card);
+            update.add("{\"id\": " + id + ", \"amount\": 2.00}");
+        }
+        createBody = create.toString();
+        updateBody = update.toString();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int createOneByOne(Rows rows) throws Exception {
+        int status = 0;
+        for (int i = 0; i < items; i++) {
+            status = perform(MockMvcRequestBuilders.post("/cashcards").content(card));
+        }
+        rows.rows += items;
+        return status;
+    }
+
+    @Benchmark
+    public int createBatch(Rows rows) throws Exception {
+        int status = perform(MockMvcRequestBuilders.post("/cashcards/batch").content(createBody));
+        rows.rows += items;
+        return status;
+    }
+
+    @Benchmark
+    public int updateOneByOne(Rows rows) throws Exception {
+        int status = 0;
+        for (Long id : ids) {
+            status = perform(MockMvcRequestBuilders.put("/cashcards/{id}", id)
+                    .content("{\"amount\": 2.00}"));
+        }
+        rows.rows += items;
+        return status;
+    }
+
+    @Benchmark
+    public int updateBatch(Rows rows) throws Exception {
+        int status = perform(MockMvcRequestBuilders.put("/cashcards/batch").content(updateBody));
+        rows.rows += items;
+        return status;
+    }
+
+    private int perform(MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request.header(HttpHeaders.AUTHORIZATION, authorization)
+                .contentType(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse()
+                .getStatus();
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.benchmark;
+
+import example.cashcard.CashcardApplication;
+import example.cashcard.model.CashCard;
+import example.cashcard.repository.CashCardJdbcRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the real application, with the test fixtures on the classpath, for
+ * benchmarks that need the database or the web layer.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+final class BenchmarkApplication {
+
+    static final String OWNER = "sarah1";
+
+    private static final int SEED_CHUNK = 5_000;
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        String[] args = new String[properties.length + 3];
+        args[0] = "--server.port=0";
+        args[1] = "--logging.level.root=WARN";
+        // A benchmark is one owner calling as fast as it can; it would only measure 429s.
+        args[2] = "--cashcard.rate-limit.requests-per-second=1000000000";
+        for (int i = 0; i < properties.length; i++) {
+            args[i + 3] = "--" + properties[i];
+        }
+
+        return new SpringApplicationBuilder(CashcardApplication.class).run(args);
+    }
+
+    /**
+     * Inserts {@code cards} cards for {@link #OWNER} with pseudo-random amounts.
+     */
+    static void seed(ApplicationContext context, int cards) {
+        CashCardJdbcRepository cashCardJdbcRepository = context.getBean(CashCardJdbcRepository.class);
+        SplittableRandom random = new SplittableRandom(42);
+
+        List<CashCard> chunk = new ArrayList<>(SEED_CHUNK);
+        for (int i = 0; i < cards; i++) {
+            chunk.add(new CashCard(null, random.nextLong(1, 1_000_000), OWNER));
+            if (chunk.size() == SEED_CHUNK) {
+                cashCardJdbcRepository.insertAll(chunk);
+                chunk.clear();
+            }
+        }
+        cashCardJdbcRepository.insertAll(chunk);
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.benchmark;
+
+import com.jayway.jsonpath.JsonPath;
+import jakarta.servlet.Filter;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * End-to-end {@code CashCardController} calls through MockMvc, including the
+ * security filter chain, authenticated with HTTP Basic or a bearer token.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CashCardControllerBenchmark {
+
+    @Param({"basic", "bearer"})
+    String authentication;
+
+    private ConfigurableApplicationContext context;
+
+    private MockMvc mockMvc;
+
+    private String authorization;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start("cashcard.security.token.enabled=true");
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                .addFilters(context.getBean("springSecurityFilterChain", Filter.class))
+                .build();
+
+        String basic = "Basic " + Base64.getEncoder()
+                .encodeToString("sarah1:abc123".getBytes(StandardCharsets.UTF_8));
+        if (authentication.equals("basic")) {
+            authorization = basic;
+        } else {
+            MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/auth/token")
+                    .header(HttpHeaders.AUTHORIZATION, basic))
+                    .andReturn();
+            authorization = "Bearer " + JsonPath.read(result.getResponse().getContentAsString(), "$.access_token");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int findById() throws Exception {
+        return perform(MockMvcRequestBuilders.get("/cashcards/99"));
+    }
+
+    @Benchmark
+    public int findAll() throws Exception {
+        return perform(MockMvcRequestBuilders.get("/cashcards"));
+    }
+
+    @Benchmark
+    public int summarize() throws Exception {
+        return perform(MockMvcRequestBuilders.get("/cashcards/summary"));
+    }
+
+    private int perform(MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request.header(HttpHeaders.AUTHORIZATION, authorization))
+                .andReturn()
+                .getResponse()
+                .getStatus();
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import example.cashcard.model.CashCard;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JSON (de)serialization and balance aggregation of {@link CashCard} pages,
+ * with amounts in cents, against the former {@code Double} representation.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CashCardJsonBenchmark {
+
+    public record DoubleCashCard(Long id, Double amount, String owner) {
+
+    }
+
+    @Param({"1", "20", "200"})
+    int pageSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private List<CashCard> page;
+
+    private List<DoubleCashCard> doublePage;
+
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        page = new ArrayList<>(pageSize);
+        doublePage = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            long cents = random.nextLong(1, 1_000_000);
+            page.add(new CashCard((long) i, cents, BenchmarkApplication.OWNER));
+            doublePage.add(new DoubleCashCard((long) i, cents / 100.0, BenchmarkApplication.OWNER));
+        }
+        json = objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] serializeCents() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] serializeDouble() throws IOException {
+        return objectMapper.writeValueAsBytes(doublePage);
+    }
+
+    @Benchmark
+    public CashCard[] deserializeCents() throws IOException {
+        return objectMapper.readValue(json, CashCard[].class);
+    }
+
+    @Benchmark
+    public DoubleCashCard[] deserializeDouble() throws IOException {
+        return objectMapper.readValue(json, DoubleCashCard[].class);
+    }
+
+    @Benchmark
+    public long sumCents() {
+        long sum = 0;
+        for (CashCard cashCard : page) {
+            sum = Math.addExact(sum, cashCard.amount());
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Double sumDouble() {
+        Double sum = 0.0;
+        for (DoubleCashCard cashCard : doublePage) {
+            sum += cashCard.amount();
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.benchmark;
+
+import example.cashcard.model.CashCard;
+import example.cashcard.model.CashCardSummary;
+import example.cashcard.repository.CashCardRepository;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * {@link CashCardRepository} queries against an H2 seeded with {@code cards}
+ * cards for one owner. Deep pages are read one page before the end, with both
+ * offset and keyset paging. Other volumes are run with
+ * {@code -Djmh.args="CashCardRepository -p cards=5000000"}.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CashCardRepositoryBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final long CARD_ID = 99L;
+
+    @Param({"100000", "2000000"})
+    int cards;
+
+    private ConfigurableApplicationContext context;
+
+    private CashCardRepository cashCardRepository;
+
+    private long deepAmount;
+
+    private long deepId;
+
+    private long amount;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        BenchmarkApplication.seed(context, cards);
+        cashCardRepository = context.getBean(CashCardRepository.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        // Otherwise H2 hands back the last result of a query while no table has changed.
+        jdbcTemplate.execute("SET OPTIMIZE_REUSE_RESULTS 0");
+        Map<String, Object> deepCursor = jdbcTemplate.queryForMap(
+                "SELECT amount, id FROM cash_card WHERE owner = ? ORDER BY owner, amount, id LIMIT 1 OFFSET ?",
+                BenchmarkApplication.OWNER, cards - PAGE_SIZE);
+        deepAmount = ((Number) deepCursor.get("AMOUNT")).longValue();
+        deepId = ((Number) deepCursor.get("ID")).longValue();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<CashCard> findByIdCached() {
+        return cashCardRepository.findById(CARD_ID);
+    }
+
+    @Benchmark
+    public Optional<CashCard> findByIdAndOwner() {
+        return cashCardRepository.findByIdAndOwner(CARD_ID, BenchmarkApplication.OWNER);
+    }
+
+    @Benchmark
+    public Slice<CashCard> findFirstPageByOffset() {
+        return cashCardRepository.findByOwner(BenchmarkApplication.OWNER,
+                PageRequest.of(0, PAGE_SIZE, Sort.by("owner", "amount", "id")));
+    }
+
+    @Benchmark
+    public Slice<CashCard> findDeepPageByOffset() {
+        return cashCardRepository.findByOwner(BenchmarkApplication.OWNER,
+                PageRequest.of(cards / PAGE_SIZE - 1, PAGE_SIZE, Sort.by("owner", "amount", "id")));
+    }
+
+    @Benchmark
+    public List<CashCard> findDeepPageByKeyset() {
+        return cashCardRepository.findByOwnerAfter(BenchmarkApplication.OWNER, deepAmount, deepId, PAGE_SIZE + 1);
+    }
+
+    @Benchmark
+    public CashCardSummary summarizeByOwner() {
+        return cashCardRepository.summarizeByOwner(BenchmarkApplication.OWNER);
+    }
+
+    @Benchmark
+    public int updateAmountByIdAndOwner() {
+        return cashCardRepository.updateAmountByIdAndOwner(CARD_ID, BenchmarkApplication.OWNER, ++amount);
+    }
+
+}
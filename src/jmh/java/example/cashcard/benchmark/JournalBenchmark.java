@@ -0,0 +1,95 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.benchmark;
+
+import example.cashcard.journal.CashCardWriteBehind;
+import example.cashcard.model.CashCard;
+import example.cashcard.repository.CashCardRepository;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Amount updates from concurrent clients, each committed on its own or
+ * journaled with group commit and applied in the background.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Threads(8)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JournalBenchmark {
+
+    private static final Path JOURNAL = Path.of("target", "benchmark.journal");
+
+    @Param({"false", "true"})
+    boolean journal;
+
+    private ConfigurableApplicationContext context;
+
+    private CashCardRepository cashCardRepository;
+
+    private CashCardWriteBehind writeBehind;
+
+    private long firstId;
+
+    private long lastId;
+
+    @Setup
+    public void setUp() throws IOException {
+        Files.deleteIfExists(JOURNAL);
+        context = BenchmarkApplication.start("cashcard.journal.enabled=" + journal,
+                "cashcard.journal.file=" + JOURNAL);
+        BenchmarkApplication.seed(context, 10_000);
+        cashCardRepository = context.getBean(CashCardRepository.class);
+        writeBehind = context.getBeanProvider(CashCardWriteBehind.class).getIfAvailable();
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        firstId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM cash_card WHERE owner = ?", Long.class,
+                BenchmarkApplication.OWNER);
+        lastId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM cash_card WHERE owner = ?", Long.class,
+                BenchmarkApplication.OWNER);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean update() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id = random.nextLong(firstId, lastId + 1);
+        long amount = random.nextLong(1, 1_000_000);
+
+        if (writeBehind != null) {
+            return writeBehind.updateAll(List.of(new CashCard(id, amount, BenchmarkApplication.OWNER)))[0] > 0;
+        }
+        return cashCardRepository.updateAmountByIdAndOwner(id, BenchmarkApplication.OWNER, amount) > 0;
+    }
+
+}
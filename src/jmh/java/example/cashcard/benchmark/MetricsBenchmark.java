@@ -0,0 +1,90 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.benchmark;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * What the instrumentation adds to every request: one histogram timer sample,
+ * the same with the per-call tag lookup Boot does for {@code http.server.requests}
+ * and {@code spring.data.repository.invocations}, and the ownership
+ * counter, all against the Prometheus registry the application uses.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MetricsBenchmark {
+
+    private PrometheusMeterRegistry registry;
+
+    private Timer timer;
+
+    private Counter counter;
+
+    @Setup
+    public void setUp() {
+        registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        timer = Timer.builder("cashcard.benchmark")
+                .tag("method", "findById")
+                .publishPercentileHistogram()
+                .register(registry);
+        counter = Counter.builder("cashcard.ownership.rejected")
+                .tag("operation", "find")
+                .register(registry);
+    }
+
+    @Benchmark
+    public long uninstrumented() {
+        return System.nanoTime();
+    }
+
+    @Benchmark
+    public void timer() {
+        Timer.Sample sample = Timer.start(registry);
+        sample.stop(timer);
+    }
+
+    @Benchmark
+    public void timerLookedUpByTag() {
+        Timer.Sample sample = Timer.start(registry);
+        sample.stop(Timer.builder("cashcard.benchmark")
+                .tag("method", "findById")
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void timerContended() {
+        Timer.Sample sample = Timer.start(registry);
+        sample.stop(timer);
+    }
+
+    @Benchmark
+    public void counter() {
+        counter.increment();
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.benchmark;
+
+import example.cashcard.model.CashCard;
+import example.cashcard.repository.CashCardRepository;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Updates and deletes of one owner's card the way the controller used to do
+ * them, an ownership lookup through the card cache and then a
+ * {@code save}/{@code deleteById}, against the single owner-guarded
+ * statements. Deletes take the next of {@value #DELETABLE_CARDS} cards seeded
+ * before each iteration.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OwnerGuardedWriteBenchmark {
+
+    private static final long CARD_ID = 99L;
+
+    private static final int DELETABLE_CARDS = 200_000;
+
+    @State(Scope.Thread)
+    public static class Deletable {
+
+        private final Deque<Long> ids = new ArrayDeque<>();
+
+        @Setup(Level.Iteration)
+        public void seed(OwnerGuardedWriteBenchmark benchmark) {
+            JdbcTemplate jdbcTemplate = benchmark.context.getBean(JdbcTemplate.class);
+            long from = jdbcTemplate.queryForObject("SELECT MAX(id) FROM cash_card", Long.class);
+            BenchmarkApplication.seed(benchmark.context, DELETABLE_CARDS);
+
+            ids.clear();
+            ids.addAll(jdbcTemplate.queryForList("SELECT id FROM cash_card WHERE id > ? ORDER BY id",
+                    Long.class, from));
+        }
+
+    }
+
+    private ConfigurableApplicationContext context;
+
+    private CashCardRepository cashCardRepository;
+
+    private long amount;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        cashCardRepository = context.getBean(CashCardRepository.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean updateByFindAndSave() {
+        return findCashCard(CARD_ID)
+                .map(cashCard -> cashCardRepository.save(
+                        new CashCard(cashCard.id(), ++amount, cashCard.owner(), cashCard.version())))
+                .isPresent();
+    }
+
+    @Benchmark
+    public int updateAmountByIdAndOwner() {
+        return cashCardRepository.updateAmountByIdAndOwner(CARD_ID, BenchmarkApplication.OWNER, ++amount);
+    }
+
+    @Benchmark
+    public boolean deleteByFindAndDeleteById(Deletable deletable) {
+        Long id = deletable.ids.poll();
+        if (findCashCard(id).isPresent()) {
+            cashCardRepository.deleteById(id);
+            return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    public int deleteByIdAndOwner(Deletable deletable) {
+        return cashCardRepository.deleteByIdAndOwner(deletable.ids.poll(), BenchmarkApplication.OWNER);
+    }
+
+    private Optional<CashCard> findCashCard(Long id) {
+        return cashCardRepository.findById(id)
+                .filter(found -> found.owner().equals(BenchmarkApplication.OWNER));
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.benchmark;
+
+import example.cashcard.model.CashCard;
+import example.cashcard.repository.CashCardRepository;
+import example.cashcard.sharding.OwnerShardedDataSource;
+import example.cashcard.sharding.ShardContext;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Card creation throughput from {@code Threads} concurrent owners as the
+ * number of shards grows. Every thread is its own owner, pinned to its shard
+ * the way {@code OwnerShardFilter} pins a request.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Threads(8)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ShardingBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Application {
+
+        @Param({"1", "2", "4"})
+        int shards;
+
+        ConfigurableApplicationContext context;
+
+        CashCardRepository cashCardRepository;
+
+        OwnerShardedDataSource dataSource;
+
+        final AtomicInteger owners = new AtomicInteger();
+
+        @Setup
+        public void setUp() {
+            context = BenchmarkApplication.start("cashcard.sharding.shard-count=" + shards);
+            cashCardRepository = context.getBean(CashCardRepository.class);
+            dataSource = context.getBeanProvider(OwnerShardedDataSource.class).getIfAvailable();
+        }
+
+        @TearDown
+        public void tearDown() {
+            context.close();
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class Owner {
+
+        String name;
+
+        @Setup
+        public void setUp(Application application) {
+            name = "owner-" + application.owners.getAndIncrement();
+            if (application.dataSource != null) {
+                ShardContext.set(application.dataSource.shardOf(name));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            ShardContext.clear();
+        }
+
+    }
+
+    @Benchmark
+    public CashCard create(Application application, Owner owner) {
+        return application.cashCardRepository.save(new CashCard(null, 100L, owner.name));
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.benchmark;
+
+import example.cashcard.repository.CashCardJdbcRepository;
+import example.cashcard.repository.CashCardJdbcRepository.TransferResult;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Transfers from concurrent clients between random pairs among {@code cards}
+ * cards of one owner: with few cards nearly every transfer waits on another's
+ * row locks, with many they rarely meet.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Threads(8)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TransferBenchmark {
+
+    @Param({"4", "10000"})
+    int cards;
+
+    private ConfigurableApplicationContext context;
+
+    private CashCardJdbcRepository cashCardJdbcRepository;
+
+    private long firstId;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        BenchmarkApplication.seed(context, cards);
+        cashCardJdbcRepository = context.getBean(CashCardJdbcRepository.class);
+        firstId = context.getBean(JdbcTemplate.class).queryForObject(
+                "SELECT MIN(id) FROM cash_card WHERE owner = ?", Long.class, BenchmarkApplication.OWNER);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public TransferResult transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(cards);
+        int to = (from + 1 + random.nextInt(cards - 1)) % cards;
+
+        return cashCardJdbcRepository.transfer(firstId + from, firstId + to, BenchmarkApplication.OWNER,
+                random.nextLong(1, 100));
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.benchmark;
+
+import example.cashcard.repository.UserJdbcRepository;
+import example.cashcard.security.CachingUserDetailsService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.jdbc.JdbcDaoImpl;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * The user lookup behind every authenticated request, with {@code users}
+ * owners in the user store: straight from the database, and through the user
+ * cache for a set of active owners that fits in it and for owners picked from
+ * the whole population, most of which miss.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UserLookupBenchmark {
+
+    private static final int IMPORT_CHUNK = 10_000;
+
+    /**
+     * Fewer than {@code cashcard.security.user-cache.maximum-size}.
+     */
+    private static final int ACTIVE_USERS = 5_000;
+
+    @Param({"1000000"})
+    int users;
+
+    private ConfigurableApplicationContext context;
+
+    private JdbcDaoImpl database;
+
+    private CachingUserDetailsService cache;
+
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        database = new JdbcDaoImpl();
+        database.setDataSource(context.getBean(DataSource.class));
+        cache = context.getBean(CachingUserDetailsService.class);
+
+        // One hash for everybody: encoding a million BCrypt passwords would
+        // take hours and does not change the lookup.
+        String password = context.getBean(PasswordEncoder.class).encode("abc123");
+        UserJdbcRepository userJdbcRepository = context.getBean(UserJdbcRepository.class);
+        List<UserDetails> chunk = new ArrayList<>(IMPORT_CHUNK);
+        for (int i = 0; i < users; i++) {
+            chunk.add(User.withUsername(username(i)).password(password).roles("CARD-OWNER").build());
+            if (chunk.size() == IMPORT_CHUNK) {
+                userJdbcRepository.importAll(chunk);
+                chunk.clear();
+            }
+        }
+        userJdbcRepository.importAll(chunk);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserDetails database() {
+        return database.loadUserByUsername(username(random.nextInt(users)));
+    }
+
+    @Benchmark
+    public UserDetails cachedActiveUsers() {
+        return cache.loadUserByUsername(username(random.nextInt(ACTIVE_USERS)));
+    }
+
+    @Benchmark
+    public UserDetails cachedAllUsers() {
+        return cache.loadUserByUsername(username(random.nextInt(users)));
+    }
+
+    private static String username(int i) {
+        return "owner-" + i;
+    }
+
+}
@@ -2,8 +2,13 @@ package example.cashcard;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.cache.annotation.EnableCaching;
 
-@SpringBootApplication
+// R2DBC is only on the classpath in the reactive profile, for
+// example.cashcard.reactive; left in, it would stand in for the DataSource.
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
+@EnableCaching
 public class CashcardApplication {
 
 	public static void main(String[] args) {
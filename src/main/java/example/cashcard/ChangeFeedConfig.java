@@ -0,0 +1,44 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import example.cashcard.changes.CashCardChangeFeed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+@Configuration
+public class ChangeFeedConfig {
+
+    @Bean
+    CashCardChangeFeed cashCardChangeFeed(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${cashcard.changes.history}") int history,
+            @Value("${cashcard.changes.buffer}") int buffer,
+            @Value("${cashcard.changes.timeout}") Duration timeout,
+            @Value("${cashcard.changes.heartbeat}") Duration heartbeat,
+            @Value("${cashcard.changes.retention}") Duration retention,
+            @Value("${cashcard.changes.send-timeout}") Duration sendTimeout,
+            @Value("${cashcard.changes.delivery-threads}") int deliveryThreads) {
+        CashCardChangeFeed changeFeed = new CashCardChangeFeed(objectMapper, history, buffer, timeout, heartbeat,
+                retention, sendTimeout, deliveryThreads, Counter.builder("cashcard.changes.dropped")
+                        .description("Change feed subscribers dropped because they fell a full buffer behind"
+                                + " or a write to them stalled")
+                        .register(meterRegistry));
+        Gauge.builder("cashcard.changes.subscribers", changeFeed, CashCardChangeFeed::getSubscribers)
+                .register(meterRegistry);
+
+        return changeFeed;
+    }
+
+}
@@ -0,0 +1,22 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard;
+
+import example.cashcard.repository.CashCardRepository;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jdbc.repository.config.EnableJdbcRepositories;
+
+/**
+ * Keeps Spring Data JDBC to {@code example.cashcard.repository}. The reactive
+ * profile adds R2DBC repositories under {@code example.cashcard.reactive},
+ * which JDBC would reject rather than skip.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+@Configuration
+@EnableJdbcRepositories(basePackageClasses = CashCardRepository.class)
+class JdbcConfig {
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard;
+
+import example.cashcard.journal.CashCardJournal;
+import example.cashcard.journal.CashCardWriteBehind;
+import example.cashcard.repository.CashCardJdbcRepository;
+import example.cashcard.repository.CashCardRepository;
+import example.cashcard.sharding.OwnerShardedDataSource;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Opt-in write-behind mode: card updates and deletes are acknowledged once
+ * they are flushed to a local journal, and reach the database shortly after.
+ * List, summary and export queries read the database, so they can trail an
+ * acknowledged write by one applier batch.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+@Configuration
+@ConditionalOnProperty(name = "cashcard.journal.enabled", havingValue = "true")
+public class JournalConfig {
+
+    @Bean
+    CashCardJournal cashCardJournal(@Value("${cashcard.journal.file}") Path file,
+            @Value("${cashcard.journal.size}") DataSize size) throws IOException {
+        return new CashCardJournal(file, Math.toIntExact(size.toBytes()));
+    }
+
+    @Bean
+    CashCardWriteBehind cashCardWriteBehind(CashCardJournal cashCardJournal, CashCardRepository cashCardRepository,
+            CashCardJdbcRepository cashCardJdbcRepository, ObjectProvider<OwnerShardedDataSource> shardedDataSource,
+            @Value("${cashcard.journal.batch-size}") int batchSize,
+            @Value("${cashcard.journal.apply-timeout}") Duration applyTimeout) throws InterruptedException {
+        return new CashCardWriteBehind(cashCardJournal, cashCardRepository, cashCardJdbcRepository,
+                shardedDataSource.getIfAvailable(), batchSize, applyTimeout);
+    }
+
+}
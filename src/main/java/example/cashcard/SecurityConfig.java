@@ -4,17 +4,37 @@
  */
 package example.cashcard;
 
+import example.cashcard.security.CachingPasswordEncoder;
+import example.cashcard.security.CachingUserDetailsService;
+import example.cashcard.security.ConcurrencyLimitFilter;
+import example.cashcard.security.OwnerRateLimiter;
+import example.cashcard.security.RateLimitFilter;
+import example.cashcard.security.TokenService;
+import example.cashcard.sharding.OwnerShardedDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.jdbc.JdbcDaoImpl;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+import org.springframework.security.web.session.DisableEncodeUrlFilter;
 
 /**
  *
@@ -23,42 +43,109 @@ import org.springframework.security.web.SecurityFilterChain;
 @Configuration
 public class SecurityConfig {
 
+    static final String REJECTED_METRIC = "cashcard.requests.rejected";
+
+    /**
+     * Role of operators, who may read the meters; they are not card owners.
+     */
+    static final String ACTUATOR_ROLE = "ACTUATOR";
+
     @Bean
-    SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    SecurityFilterChain filterChain(HttpSecurity http, ObjectProvider<JwtDecoder> jwtDecoder,
+            OwnerRateLimiter rateLimiter, MeterRegistry meterRegistry,
+            @Value("${cashcard.concurrency-limit.max-in-flight}") int maxInFlight,
+            @Value("${cashcard.actuator.prometheus.public}") boolean publicScraping) throws Exception {
+        ConcurrencyLimitFilter concurrencyLimitFilter
+                = new ConcurrencyLimitFilter(maxInFlight, rejected(meterRegistry, "overloaded"));
+        Gauge.builder("cashcard.requests.in-flight", concurrencyLimitFilter, ConcurrencyLimitFilter::getInFlight)
+                .register(meterRegistry);
+
         http.authorizeHttpRequests(request -> request
                 .requestMatchers("/cashcards/**")
-                .hasRole("CARD-OWNER"))
+                .hasRole("CARD-OWNER")
+                .requestMatchers("/auth/token")
+                .authenticated()
+                .requestMatchers("/actuator/metrics/**")
+                .hasRole(ACTUATOR_ROLE)
+                .requestMatchers("/actuator/prometheus")
+                .access(publicScraping ? (authentication, context) -> new AuthorizationDecision(true)
+                        : AuthorityAuthorizationManager.hasRole(ACTUATOR_ROLE))
+                .requestMatchers("/actuator/health")
+                .permitAll())
                 .httpBasic(Customizer.withDefaults())
-                .csrf(csrf -> csrf.disable());
+                .csrf(csrf -> csrf.disable())
+                .addFilterBefore(concurrencyLimitFilter, DisableEncodeUrlFilter.class)
+                .addFilterBefore(new RateLimitFilter(rateLimiter, rejected(meterRegistry, "rate-limited")),
+                        AuthorizationFilter.class);
+
+        if (jwtDecoder.getIfAvailable() != null) {
+            http.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                    .oauth2ResourceServer(resourceServer -> resourceServer
+                    .jwt(jwt -> jwt.jwtAuthenticationConverter(tokenAuthenticationConverter())));
+        }
 
         return http.build();
     }
 
     @Bean
-    PasswordEncoder passwrodEncoder() {
-        return new BCryptPasswordEncoder();
+    OwnerRateLimiter ownerRateLimiter(
+            @Value("${cashcard.rate-limit.requests-per-second}") double requestsPerSecond,
+            @Value("${cashcard.rate-limit.burst}") int burst,
+            @Value("${cashcard.rate-limit.maximum-owners}") long maximumOwners,
+            @Value("${cashcard.rate-limit.idle-timeout}") Duration idleTimeout) {
+        return new OwnerRateLimiter(requestsPerSecond, burst, maximumOwners, idleTimeout);
+    }
+
+    private static Counter rejected(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder(REJECTED_METRIC)
+                .description("Requests refused before reaching a controller")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private JwtAuthenticationConverter tokenAuthenticationConverter() {
+        JwtGrantedAuthoritiesConverter authoritiesConverter = new JwtGrantedAuthoritiesConverter();
+        authoritiesConverter.setAuthoritiesClaimName(TokenService.ROLES_CLAIM);
+        authoritiesConverter.setAuthorityPrefix("");
+
+        JwtAuthenticationConverter authenticationConverter = new JwtAuthenticationConverter();
+        authenticationConverter.setJwtGrantedAuthoritiesConverter(authoritiesConverter);
+
+        return authenticationConverter;
+    }
+
+    @Bean
+    PasswordEncoder passwrodEncoder(MeterRegistry meterRegistry,
+            @Value("${cashcard.security.credential-cache.maximum-size}") long maximumSize,
+            @Value("${cashcard.security.credential-cache.time-to-live}") Duration timeToLive) {
+        CachingPasswordEncoder passwordEncoder = new CachingPasswordEncoder(new BCryptPasswordEncoder(),
+                maximumSize, timeToLive);
+        // Same tag keys as the Spring caches bound by Boot: Prometheus drops meters
+        // whose name is already registered with a different set of tag keys.
+        CaffeineCacheMetrics.monitor(meterRegistry, passwordEncoder.getCache(), "credentials",
+                "cache.manager", "passwordEncoder", "name", "credentials");
+
+        return passwordEncoder;
     }
 
+    /**
+     * Users come from the {@code users} and {@code authorities} tables, through
+     * a cache. Under owner sharding they are read from the first shard, never
+     * through the routing, so the shard a request is routed to does not matter.
+     */
     @Bean
-    UserDetailsService testOnlyUsers(PasswordEncoder passwordEncoder) {
-        User.UserBuilder users = User.builder();
-
-        UserDetails sarah = users.username("sarah1")
-                .password(passwordEncoder.encode("abc123"))
-                .roles("CARD-OWNER")
-                .build();
-        
-        UserDetails hankOwnsNoCards  = users.username("hank-owns-no-cards")
-                .password(passwordEncoder.encode("qrs456"))
-                .roles("NON-OWNER")
-                .build();
-        
-        UserDetails kumar = users.username("kumar2")
-                .password(passwordEncoder.encode("xyz789"))
-                .roles("CARD-OWNER")
-                .build();
-
-        return new InMemoryUserDetailsManager(sarah, hankOwnsNoCards, kumar);
+    CachingUserDetailsService userDetailsService(DataSource dataSource, MeterRegistry meterRegistry,
+            @Value("${cashcard.security.user-cache.maximum-size}") long maximumSize,
+            @Value("${cashcard.security.user-cache.time-to-live}") Duration timeToLive) {
+        JdbcDaoImpl jdbcUsers = new JdbcDaoImpl();
+        jdbcUsers.setDataSource(OwnerShardedDataSource.userStore(dataSource));
+
+        CachingUserDetailsService userDetailsService
+                = new CachingUserDetailsService(jdbcUsers, maximumSize, timeToLive);
+        CaffeineCacheMetrics.monitor(meterRegistry, userDetailsService.getCache(), "users",
+                "cache.manager", "userDetailsService", "name", "users");
+
+        return userDetailsService;
     }
 
 }
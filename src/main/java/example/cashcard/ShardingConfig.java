@@ -0,0 +1,131 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import example.cashcard.sharding.OwnerShardFilter;
+import example.cashcard.sharding.OwnerShardedDataSource;
+import example.cashcard.sharding.ShardContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.sql.DataSource;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.Location;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Opt-in owner sharding: with {@code cashcard.sharding.shard-count} above one,
+ * cards are spread over that many databases by owner. Each shard is migrated
+ * on its own and hands out ids from its own residue class, so ids stay unique
+ * across shards without any coordination. Only the first shard, which holds
+ * the users, runs the user store migrations.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+@Configuration
+@ConditionalOnExpression("${cashcard.sharding.shard-count:1} > 1")
+public class ShardingConfig {
+
+    private static final String NEXT_ID = """
+                                          SELECT IDENTITY_BASE FROM INFORMATION_SCHEMA.COLUMNS
+                                          WHERE TABLE_NAME = 'CASH_CARD' AND COLUMN_NAME = 'ID'
+                                          """;
+
+    /**
+     * Where the user store migrations live, under any location prefix.
+     */
+    private static final String USER_STORE_MIGRATIONS = "db/users";
+
+    @Bean
+    OwnerShardedDataSource dataSource(DataSourceProperties properties, Environment environment,
+            MeterRegistry meterRegistry,
+            @Value("${cashcard.sharding.shard-count}") int shardCount,
+            @Value("${cashcard.sharding.url}") String url) {
+        Binder binder = Binder.get(environment);
+
+        List<DataSource> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            HikariDataSource shard = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(url.replace("{shard}", Integer.toString(i)))
+                    .build();
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(shard));
+            shard.setPoolName("cashcard-shard-" + i);
+            shard.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            shards.add(shard);
+        }
+
+        return new OwnerShardedDataSource(shards);
+    }
+
+    @Bean
+    FlywayMigrationStrategy shardMigrationStrategy(OwnerShardedDataSource dataSource) {
+        return flyway -> {
+            List<DataSource> shards = dataSource.getShards();
+            Location[] cardLocations = Arrays.stream(flyway.getConfiguration().getLocations())
+                    .filter(location -> !location.getPath().endsWith(USER_STORE_MIGRATIONS))
+                    .toArray(Location[]::new);
+            for (int i = 0; i < shards.size(); i++) {
+                FluentConfiguration configuration = Flyway.configure()
+                        .configuration(flyway.getConfiguration())
+                        .dataSource(shards.get(i));
+                if (i > 0) {
+                    configuration.locations(cardLocations);
+                }
+                configuration.load().migrate();
+                interleaveIds(shards.get(i), i, shards.size());
+            }
+        };
+    }
+
+    @Bean
+    FilterRegistrationBean<OwnerShardFilter> ownerShardFilter(OwnerShardedDataSource dataSource) {
+        FilterRegistrationBean<OwnerShardFilter> registration
+                = new FilterRegistrationBean<>(new OwnerShardFilter(dataSource));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+
+        return registration;
+    }
+
+    /**
+     * Carries the shard onto the task executor, which runs MVC async work such
+     * as streamed exports.
+     */
+    @Bean
+    TaskDecorator shardContextTaskDecorator() {
+        return ShardContext::wrap;
+    }
+
+    /**
+     * Moves the id sequence of shard {@code index} to the next value congruent
+     * to {@code index} modulo {@code count} and steps it by {@code count}.
+     * Starting from the current next value keeps ids already handed out unique.
+     */
+    private static void interleaveIds(DataSource shard, int index, int count) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(shard);
+
+        long next = jdbcTemplate.queryForObject(NEXT_ID, Long.class);
+        long start = next + Math.floorMod(index - next, count);
+        jdbcTemplate.execute("ALTER TABLE cash_card ALTER COLUMN id RESTART WITH " + start);
+        jdbcTemplate.execute("ALTER TABLE cash_card ALTER COLUMN id SET INCREMENT BY " + count);
+    }
+
+}
@@ -0,0 +1,494 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.changes;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import example.cashcard.model.CashCardChange;
+import io.micrometer.core.instrument.Counter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Fans card changes out to the server-sent event streams of their owner.
+ * <p>
+ * Every change gets the next number of one sequence, which is its event id,
+ * and the owner's last {@code historySize} changes are kept, so a client that
+ * reconnects with {@code Last-Event-ID} is sent only what it missed. When that
+ * is no longer known, because the changes were evicted, the server restarted
+ * or nobody followed the owner for {@code retention}, the client gets a
+ * {@value #RESET_EVENT} event instead and has to read its cards again.
+ * <p>
+ * Writers hold a {@link #guard} of the cards they change from before the write
+ * until its changes are published, so changes of one card are numbered in the
+ * order they were committed, and a client that applies them in event order
+ * ends up with the committed state.
+ * <p>
+ * Publishing never waits on a client: each change is put on the bounded queue
+ * of every subscriber of the owner and written out by a few delivery threads.
+ * A subscriber whose queue is full is dropped, and can resume from its last
+ * event id. So is one whose write has been blocked for {@code sendTimeout},
+ * and a delivery thread is added for as long as that write holds its own, so
+ * stalled connections never hold up the others. Idle subscribers cost a queue
+ * and a heartbeat comment every {@code heartbeat}, which also finds the
+ * connections that died silently.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+public class CashCardChangeFeed implements AutoCloseable {
+
+    public static final String SUBSCRIBED_EVENT = "subscribed";
+
+    public static final String RESET_EVENT = "reset";
+
+    private static final Event HEARTBEAT = new Event(0, null, null);
+
+    /**
+     * Stands for a {@code Last-Event-ID} that no sequence number follows.
+     */
+    private static final long UNKNOWN_SEQUENCE = -1;
+
+    private static final int GUARD_STRIPES = 256;
+
+    private final ConcurrentMap<String, OwnerFeed> feeds = new ConcurrentHashMap<>();
+
+    // Starts from the clock so that ids handed out before a restart are
+    // older than any handed out after it.
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    private final ObjectMapper objectMapper;
+
+    private final int historySize;
+
+    private final int bufferSize;
+
+    private final long timeoutMillis;
+
+    private final long retentionNanos;
+
+    private final long sendTimeoutNanos;
+
+    private final int deliveryThreads;
+
+    private final Counter dropped;
+
+    private final ReentrantLock[] guards = new ReentrantLock[GUARD_STRIPES];
+
+    private final ThreadPoolExecutor delivery;
+
+    /**
+     * Delivery threads added for writes that stalled and have not returned.
+     */
+    private int stalledThreads;
+
+    private final ScheduledExecutorService scheduler;
+
+    public CashCardChangeFeed(ObjectMapper objectMapper, int historySize, int bufferSize, Duration timeout,
+            Duration heartbeat, Duration retention, Duration sendTimeout, int deliveryThreads, Counter dropped) {
+        this.objectMapper = objectMapper;
+        this.historySize = historySize;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.retentionNanos = retention.toNanos();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.deliveryThreads = deliveryThreads;
+        this.dropped = dropped;
+        for (int i = 0; i < GUARD_STRIPES; i++) {
+            guards[i] = new ReentrantLock();
+        }
+        // Threads above the core size are only started by raising it, since the queue is unbounded
+        this.delivery = new ThreadPoolExecutor(deliveryThreads, Integer.MAX_VALUE, 1, TimeUnit.MINUTES,
+                new LinkedBlockingQueue<>(), daemonThreads("cashcard-changes-"));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("cashcard-changes-heartbeat-"));
+        this.scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeat.toMillis(), heartbeat.toMillis(),
+                TimeUnit.MILLISECONDS);
+        long checkMillis = Math.max(1, sendTimeout.toMillis() / 2);
+        this.scheduler.scheduleWithFixedDelay(this::dropStalled, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public int getSubscribers() {
+        return subscribers.get();
+    }
+
+    /**
+     * Opens a stream of the owner's changes. Without {@code lastEventId} it
+     * starts with a {@value #SUBSCRIBED_EVENT} event carrying the current
+     * sequence number; with one, with the changes that followed it or a
+     * {@value #RESET_EVENT} event.
+     */
+    public SseEmitter subscribe(String owner, String lastEventId) {
+        Subscriber subscriber = new Subscriber(owner, newEmitter(timeoutMillis));
+        Long resumeAfter = resumeAfter(lastEventId);
+
+        subscribers.incrementAndGet();
+        feeds.compute(owner, (key, feed) -> {
+            OwnerFeed current = feed != null ? feed : new OwnerFeed(sequence.get());
+            current.subscribe(subscriber, resumeAfter);
+            return current;
+        });
+
+        subscriber.emitter.onCompletion(() -> unsubscribe(subscriber));
+        subscriber.emitter.onError(error -> unsubscribe(subscriber));
+        subscriber.emitter.onTimeout(subscriber.emitter::complete);
+        return subscriber.emitter;
+    }
+
+    /**
+     * Keeps other guards of any of the cards in {@code ids} waiting until it is
+     * closed. Take it before writing the cards and close it once their changes
+     * are published; when writes are nested in other locks, this one comes
+     * first. Stripes are locked in order, so two guards never deadlock.
+     */
+    public Guard guard(Collection<Long> ids) {
+        int[] stripes = ids.stream()
+                .filter(Objects::nonNull)
+                .mapToInt(id -> Math.floorMod(id.hashCode(), GUARD_STRIPES))
+                .distinct()
+                .sorted()
+                .toArray();
+        for (int stripe : stripes) {
+            guards[stripe].lock();
+        }
+        return new Guard(stripes);
+    }
+
+    /**
+     * Sends a change to the owner's subscribers, if it has any or had some
+     * within {@code retention}. Call once the change is committed, under the
+     * {@link #guard} of its card.
+     */
+    public void publish(String owner, CashCardChange change) {
+        if (!feeds.containsKey(owner)) {
+            return;
+        }
+
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(change);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        feeds.computeIfPresent(owner, (key, feed) -> {
+            feed.publish(new Event(sequence.incrementAndGet(), change.type().eventName(), data));
+            return feed;
+        });
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        feeds.values().forEach(feed -> feed.subscribers.forEach(this::drop));
+        delivery.shutdown();
+    }
+
+    private Long resumeAfter(String lastEventId) {
+        if (!StringUtils.hasText(lastEventId)) {
+            return null;
+        }
+
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return UNKNOWN_SEQUENCE;
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (subscriber.close()) {
+            subscribers.decrementAndGet();
+            feeds.computeIfPresent(subscriber.owner, (key, feed) -> {
+                feed.remove(subscriber);
+                return feed;
+            });
+        }
+    }
+
+    /**
+     * Closes a subscriber that fell behind; its stream is completed by the
+     * delivery thread, so that the caller never waits on a blocked write.
+     */
+    private boolean drop(Subscriber subscriber) {
+        if (!subscriber.close()) {
+            return false;
+        }
+
+        subscribers.decrementAndGet();
+        dropped.increment();
+        subscriber.completePending = true;
+        schedule(subscriber);
+        return true;
+    }
+
+    private void enqueue(Subscriber subscriber, Event event) {
+        if (subscriber.queue.offer(event)) {
+            schedule(subscriber);
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            delivery.execute(() -> deliver(subscriber));
+        }
+    }
+
+    private void deliver(Subscriber subscriber) {
+        try {
+            Event event;
+            while (!subscriber.closed.get() && (event = subscriber.queue.poll()) != null) {
+                subscriber.sendStarted = System.nanoTime();
+                subscriber.sending = true;
+                subscriber.emitter.send(event.toSse());
+                subscriber.sending = false;
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away, or the stream has already completed
+            unsubscribe(subscriber);
+        } finally {
+            subscriber.sending = false;
+            if (subscriber.stalled) {
+                subscriber.stalled = false;
+                resizeDelivery(-1);
+            }
+            subscriber.scheduled.set(false);
+        }
+
+        if (subscriber.closed.get()) {
+            subscriber.queue.clear();
+            if (subscriber.completePending) {
+                subscriber.completePending = false;
+                subscriber.emitter.complete();
+            }
+        } else if (!subscriber.queue.isEmpty()) {
+            schedule(subscriber);
+        }
+    }
+
+    private void heartbeat() {
+        long now = System.nanoTime();
+        for (String owner : feeds.keySet()) {
+            feeds.computeIfPresent(owner, (key, feed) -> feed.isIdle(now) ? null : feed);
+        }
+
+        for (OwnerFeed feed : feeds.values()) {
+            for (Subscriber subscriber : feed.subscribers) {
+                if (subscriber.queue.isEmpty()) {
+                    enqueue(subscriber, HEARTBEAT);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the subscribers whose write has been blocked for longer than the
+     * send timeout, and stands in another delivery thread for each until its
+     * write returns, which it does once the container's write timeout ends it.
+     */
+    private void dropStalled() {
+        long now = System.nanoTime();
+        for (OwnerFeed feed : feeds.values()) {
+            for (Subscriber subscriber : feed.subscribers) {
+                if (subscriber.sending && !subscriber.stalled && now - subscriber.sendStarted > sendTimeoutNanos) {
+                    subscriber.stalled = true;
+                    feeds.computeIfPresent(subscriber.owner, (key, current) -> {
+                        current.remove(subscriber);
+                        return current;
+                    });
+                    drop(subscriber);
+                    resizeDelivery(1);
+                }
+            }
+        }
+    }
+
+    private synchronized void resizeDelivery(int stalled) {
+        stalledThreads += stalled;
+        delivery.setCorePoolSize(deliveryThreads + stalledThreads);
+    }
+
+    /**
+     * Creates the emitter of a new subscriber.
+     */
+    SseEmitter newEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * The subscribers and recent changes of one owner, only ever modified
+     * inside {@code feeds.compute}, so a subscriber never misses or repeats a
+     * change published while it subscribes.
+     */
+    private final class OwnerFeed {
+
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+        private final Queue<Event> history = new ArrayDeque<>();
+
+        /**
+         * Every change of the owner numbered above it is still in the history.
+         */
+        private long horizon;
+
+        private long idleSince;
+
+        private OwnerFeed(long horizon) {
+            this.horizon = horizon;
+        }
+
+        private void subscribe(Subscriber subscriber, Long resumeAfter) {
+            long current = sequence.get();
+            if (resumeAfter == null) {
+                subscriber.queue.offer(new Event(current, SUBSCRIBED_EVENT, ""));
+            } else if (resumeAfter < horizon || resumeAfter > current) {
+                subscriber.queue.offer(new Event(current, RESET_EVENT, ""));
+            } else {
+                history.stream()
+                        .filter(event -> event.sequence() > resumeAfter)
+                        .forEach(subscriber.queue::offer);
+            }
+
+            subscribers.add(subscriber);
+            schedule(subscriber);
+        }
+
+        private void publish(Event event) {
+            if (history.size() == historySize) {
+                horizon = history.remove().sequence();
+            }
+            history.add(event);
+
+            for (Subscriber subscriber : subscribers) {
+                if (!subscriber.queue.offer(event)) {
+                    drop(subscriber);
+                    remove(subscriber);
+                } else {
+                    schedule(subscriber);
+                }
+            }
+        }
+
+        private void remove(Subscriber subscriber) {
+            if (subscribers.remove(subscriber) && subscribers.isEmpty()) {
+                idleSince = System.nanoTime();
+            }
+        }
+
+        private boolean isIdle(long now) {
+            return subscribers.isEmpty() && now - idleSince > retentionNanos;
+        }
+
+    }
+
+    private final class Subscriber {
+
+        private final String owner;
+
+        private final SseEmitter emitter;
+
+        /**
+         * Room for a full replay of the history on top of the buffer, so that
+         * resuming alone never drops a subscriber.
+         */
+        private final BlockingQueue<Event> queue = new LinkedBlockingQueue<>(historySize + bufferSize);
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private volatile boolean completePending;
+
+        private volatile boolean sending;
+
+        private volatile long sendStarted;
+
+        /**
+         * Dropped by {@link #dropStalled} while a write was blocked, which has
+         * not returned yet.
+         */
+        private volatile boolean stalled;
+
+        private Subscriber(String owner, SseEmitter emitter) {
+            this.owner = owner;
+            this.emitter = emitter;
+        }
+
+        private boolean close() {
+            return closed.compareAndSet(false, true);
+        }
+
+    }
+
+    /**
+     * A {@link #guard} of some cards, released by {@link #close}.
+     */
+    public final class Guard implements AutoCloseable {
+
+        private final int[] stripes;
+
+        private Guard(int[] stripes) {
+            this.stripes = stripes;
+        }
+
+        @Override
+        public void close() {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                guards[stripes[i]].unlock();
+            }
+        }
+
+    }
+
+    private record Event(long sequence, String name, String data) {
+
+        /**
+         * A new builder each time, since a built event cannot be sent twice.
+         */
+        private SseEmitter.SseEventBuilder toSse() {
+            if (name == null) {
+                return SseEmitter.event().comment("");
+            }
+
+            return SseEmitter.event()
+                    .id(Long.toString(sequence))
+                    .name(name)
+                    .data(data);
+        }
+
+    }
+
+}
@@ -0,0 +1,200 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import example.cashcard.journal.CashCardWriteBehind;
+import example.cashcard.changes.CashCardChangeFeed;
+import example.cashcard.model.CashCard;
+import example.cashcard.model.CashCardChange;
+import example.cashcard.model.CashCardBatchResult;
+import example.cashcard.repository.CashCardJdbcRepository;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Bulk variants of the single-card endpoints. Items are written in chunks of
+ * {@code cashcard.batch.chunk-size}, one JDBC batch and one transaction per
+ * chunk, and every item gets its own result in request order. Changes are
+ * published to the owner's change feed chunk by chunk, as they commit, under
+ * the feed's guard of the chunk's cards.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+@RestController
+@RequestMapping("/cashcards/batch")
+class CashCardBatchController {
+
+    private final CashCardJdbcRepository cashCardJdbcRepository;
+
+    private final CashCardWriteBehind writeBehind;
+
+    private final CashCardChangeFeed changeFeed;
+
+    private final ObjectMapper objectMapper;
+
+    private final int chunkSize;
+
+    private CashCardBatchController(CashCardJdbcRepository cashCardJdbcRepository,
+            ObjectProvider<CashCardWriteBehind> writeBehind, CashCardChangeFeed changeFeed,
+            ObjectMapper objectMapper, @Value("${cashcard.batch.chunk-size}") int chunkSize) {
+        this.cashCardJdbcRepository = cashCardJdbcRepository;
+        this.writeBehind = writeBehind.getIfAvailable();
+        this.changeFeed = changeFeed;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    private ResponseEntity<List<CashCardBatchResult>> createCashCards(@RequestBody List<CashCard> newCashCardRequests,
+            Principal principal) {
+        return ResponseEntity.ok(process(newCashCardRequests.iterator(), chunk -> create(chunk, principal)));
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    private ResponseEntity<List<CashCardBatchResult>> createCashCardsStream(InputStream body,
+            Principal principal) throws IOException {
+        return ResponseEntity.ok(process(readCashCards(body), chunk -> create(chunk, principal)));
+    }
+
+    @PutMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    private ResponseEntity<List<CashCardBatchResult>> updateCashCards(@RequestBody List<CashCard> cashCardUpdates,
+            Principal principal) {
+        return ResponseEntity.ok(process(cashCardUpdates.iterator(), chunk -> update(chunk, principal)));
+    }
+
+    @PutMapping(consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    private ResponseEntity<List<CashCardBatchResult>> updateCashCardsStream(InputStream body,
+            Principal principal) throws IOException {
+        return ResponseEntity.ok(process(readCashCards(body), chunk -> update(chunk, principal)));
+    }
+
+    @DeleteMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    private ResponseEntity<List<CashCardBatchResult>> deleteCashCards(@RequestBody List<Long> ids,
+            Principal principal) {
+        return ResponseEntity.ok(process(ids.iterator(), chunk -> delete(chunk, principal)));
+    }
+
+    @DeleteMapping(consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    private ResponseEntity<List<CashCardBatchResult>> deleteCashCardsStream(InputStream body,
+            Principal principal) throws IOException {
+        Iterator<Long> ids = objectMapper.readerFor(Long.class).readValues(body);
+        return ResponseEntity.ok(process(ids, chunk -> delete(chunk, principal)));
+    }
+
+    private List<CashCardBatchResult> create(List<CashCard> chunk, Principal principal) {
+        List<CashCard> valid = new ArrayList<>(chunk.size());
+        for (CashCard cashCard : chunk) {
+            if (cashCard.amount() != null) {
+                valid.add(new CashCard(null, cashCard.amount(), principal.getName()));
+            }
+        }
+
+        List<Long> ids = cashCardJdbcRepository.insertAll(valid);
+        List<CashCardBatchResult> results = new ArrayList<>(chunk.size());
+        int next = 0;
+        for (CashCard cashCard : chunk) {
+            if (cashCard.amount() == null) {
+                results.add(result(null, HttpStatus.BAD_REQUEST));
+            } else {
+                Long id = ids.get(next);
+                changeFeed.publish(principal.getName(), CashCardChange.created(id, valid.get(next++).amount()));
+                results.add(result(id, HttpStatus.CREATED));
+            }
+        }
+        return results;
+    }
+
+    private List<CashCardBatchResult> update(List<CashCard> chunk, Principal principal) {
+        List<CashCard> valid = new ArrayList<>(chunk.size());
+        for (CashCard cashCard : chunk) {
+            if (cashCard.id() != null && cashCard.amount() != null) {
+                valid.add(new CashCard(cashCard.id(), cashCard.amount(), principal.getName()));
+            }
+        }
+
+        List<CashCardBatchResult> results = new ArrayList<>(chunk.size());
+        try (CashCardChangeFeed.Guard guard = changeFeed.guard(valid.stream().map(CashCard::id).toList())) {
+            int[] updated = writeBehind != null
+                    ? writeBehind.updateAll(valid)
+                    : cashCardJdbcRepository.updateAll(valid);
+
+            int next = 0;
+            for (CashCard cashCard : chunk) {
+                if (cashCard.id() == null || cashCard.amount() == null) {
+                    results.add(result(cashCard.id(), HttpStatus.BAD_REQUEST));
+                } else if (updated[next++] > 0) {
+                    changeFeed.publish(principal.getName(), CashCardChange.updated(cashCard.id(), cashCard.amount()));
+                    results.add(result(cashCard.id(), HttpStatus.NO_CONTENT));
+                } else {
+                    results.add(result(cashCard.id(), HttpStatus.NOT_FOUND));
+                }
+            }
+        }
+        return results;
+    }
+
+    private List<CashCardBatchResult> delete(List<Long> chunk, Principal principal) {
+        List<CashCardBatchResult> results = new ArrayList<>(chunk.size());
+        try (CashCardChangeFeed.Guard guard = changeFeed.guard(chunk)) {
+            int[] deleted = writeBehind != null
+                    ? writeBehind.deleteAll(chunk, principal.getName())
+                    : cashCardJdbcRepository.deleteAll(chunk, principal.getName());
+
+            for (int i = 0; i < chunk.size(); i++) {
+                if (deleted[i] > 0) {
+                    changeFeed.publish(principal.getName(), CashCardChange.deleted(chunk.get(i)));
+                    results.add(result(chunk.get(i), HttpStatus.NO_CONTENT));
+                } else {
+                    results.add(result(chunk.get(i), HttpStatus.NOT_FOUND));
+                }
+            }
+        }
+        return results;
+    }
+
+    private <T> List<CashCardBatchResult> process(Iterator<T> items, Function<List<T>, List<CashCardBatchResult>> writer) {
+        List<CashCardBatchResult> results = new ArrayList<>();
+        List<T> chunk = new ArrayList<>(chunkSize);
+
+        while (items.hasNext()) {
+            chunk.add(items.next());
+            if (chunk.size() == chunkSize) {
+                results.addAll(writer.apply(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(writer.apply(chunk));
+        }
+
+        return results;
+    }
+
+    private Iterator<CashCard> readCashCards(InputStream body) throws IOException {
+        return objectMapper.readerFor(CashCard.class).readValues(body);
+    }
+
+    private static CashCardBatchResult result(Long id, HttpStatus status) {
+        return new CashCardBatchResult(id, status.value());
+    }
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.controller;
+
+import example.cashcard.changes.CashCardChangeFeed;
+import example.cashcard.security.ConcurrencyLimitFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.security.Principal;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Streams the principal's card changes as server-sent events, named
+ * {@code created}, {@code updated} and {@code deleted}. A client that
+ * reconnects with the {@code Last-Event-ID} header resumes after that event.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+@RestController
+@RequestMapping("/cashcards/changes")
+class CashCardChangeController {
+
+    static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    private final CashCardChangeFeed changeFeed;
+
+    private CashCardChangeController(CashCardChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    private SseEmitter subscribe(@RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) String lastEventId,
+            Principal principal, HttpServletRequest request) {
+        request.setAttribute(ConcurrencyLimitFilter.IDLE_STREAM_ATTRIBUTE, Boolean.TRUE);
+        return changeFeed.subscribe(principal.getName(), lastEventId);
+    }
+
+    /**
+     * A subscriber that went away is found on the next write to its stream,
+     * and is no error.
+     */
+    @ExceptionHandler(IOException.class)
+    private void subscriberGone() {
+    }
+
+}
@@ -4,28 +4,60 @@
  */
 package example.cashcard.controller;
 
+import example.cashcard.changes.CashCardChangeFeed;
+import example.cashcard.journal.CashCardWriteBehind;
 import example.cashcard.model.CashCard;
+import example.cashcard.model.CashCardChange;
+import example.cashcard.model.CashCardSummary;
+import example.cashcard.model.CashCardTransfer;
+import example.cashcard.repository.CashCardJdbcRepository;
+import example.cashcard.repository.CashCardJdbcRepository.TransferResult;
 import example.cashcard.repository.CashCardRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.util.List;
 import java.util.Optional;
-import org.springframework.data.domain.Page;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.util.UriComponentsBuilder;
 
 /**
+ * Cards of the authenticated owner. A card's ETag is its version, and a page's
+ * ETag a digest of the ids and versions on it; a {@code GET} whose
+ * {@code If-None-Match} still matches is answered 304 without a body, and for
+ * pages in the default order the match is checked against the owner index
+ * before any row is fetched. A {@code PUT} with {@code If-Match} only applies
+ * to that version of the card. A transfer moves money between two cards of the
+ * owner atomically. Every change is published to the owner's
+ * change feed once it is committed, under the feed's guard of the card.
+ * <p>
+ * Cards are read and written as JSON, or as CBOR when asked for with
+ * {@code Accept} or sent with {@code Content-Type: application/cbor}. Both
+ * share the ETag, so responses that carry one also say
+ * {@code Vary: Accept}; page ETags are weak, so pages can be gzipped too.
  *
  * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
  */
@@ -33,20 +65,117 @@ import org.springframework.web.util.UriComponentsBuilder;
 @RequestMapping("/cashcards")
 class CashCardController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    static final String OWNERSHIP_REJECTED_METRIC = "cashcard.ownership.rejected";
+
+    private static final Sort DEFAULT_SORT = Sort.by(Sort.Direction.ASC, "amount", "id");
+
+    /**
+     * Leads every page's sort. All cards on a page share their owner, so it
+     * only lets the database read the page off the owner index in order.
+     */
+    private static final Sort BY_OWNER = Sort.by("owner");
+
+    /**
+     * Stands for an {@code If-Match} that no version satisfies.
+     */
+    private static final long NO_VERSION = -1;
+
     private final CashCardRepository cashCardRepository;
 
-    private CashCardController(CashCardRepository cashCardRepository) {
+    private final CashCardJdbcRepository cashCardJdbcRepository;
+
+    private final CashCardWriteBehind writeBehind;
+
+    private final CashCardChangeFeed changeFeed;
+
+    private final Counter rejectedFinds;
+
+    private final Counter rejectedUpdates;
+
+    private final Counter rejectedDeletes;
+
+    private final Counter rejectedTransfers;
+
+    private CashCardController(CashCardRepository cashCardRepository,
+            CashCardJdbcRepository cashCardJdbcRepository, ObjectProvider<CashCardWriteBehind> writeBehind,
+            CashCardChangeFeed changeFeed, MeterRegistry meterRegistry) {
         this.cashCardRepository = cashCardRepository;
+        this.cashCardJdbcRepository = cashCardJdbcRepository;
+        this.writeBehind = writeBehind.getIfAvailable();
+        this.changeFeed = changeFeed;
+        this.rejectedFinds = ownershipRejected(meterRegistry, "find");
+        this.rejectedUpdates = ownershipRejected(meterRegistry, "update");
+        this.rejectedDeletes = ownershipRejected(meterRegistry, "delete");
+        this.rejectedTransfers = ownershipRejected(meterRegistry, "transfer");
     }
 
     @GetMapping
-    private ResponseEntity<List<CashCard>> findAll(Pageable pageable, Principal principal) {
-        Page<CashCard> page = cashCardRepository.findByOwner(principal.getName(),
-                PageRequest.of(pageable.getPageNumber(),
-                        pageable.getPageSize(),
-                        pageable.getSortOr(Sort.by(Sort.Direction.ASC, "amount"))));
+    private ResponseEntity<List<CashCard>> findAll(Pageable pageable,
+            @RequestParam(required = false) String cursor, Principal principal, WebRequest request) {
+        if (cursor != null) {
+            return findAllAfter(cursor, pageable.getPageSize(), principal, request);
+        }
+
+        Sort sort = pageable.getSortOr(DEFAULT_SORT);
+        if (sort.equals(DEFAULT_SORT) && request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(pageETag(cashCardRepository.findVersionsByOwner(principal.getName(),
+                        pageable.getPageSize(), pageable.getOffset())))) {
+            return null;
+        }
+
+        Slice<CashCard> page = cashCardRepository.findByOwner(principal.getName(),
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), BY_OWNER.and(sort)));
+
+        return ResponseEntity.ok()
+                .eTag(pageETag(page.getContent()))
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(page.getContent());
+    }
+
+    /**
+     * Keyset pages fetch one card more than they show, to know whether there
+     * is a next page, and that card counts towards the ETag as well.
+     */
+    private ResponseEntity<List<CashCard>> findAllAfter(String cursor, int size, Principal principal,
+            WebRequest request) {
+        Optional<KeysetCursor> after = cursor.isEmpty() ? Optional.empty() : KeysetCursor.decode(cursor);
+        if (!cursor.isEmpty() && after.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            String versions = after.isEmpty()
+                    ? cashCardRepository.findVersionsByOwner(principal.getName(), size + 1, 0)
+                    : cashCardRepository.findVersionsByOwnerAfter(principal.getName(),
+                            after.get().amount(), after.get().id(), size + 1);
+            if (request.checkNotModified(pageETag(versions))) {
+                return null;
+            }
+        }
 
-        return ResponseEntity.ok(page.getContent());
+        List<CashCard> cashCards = after.isEmpty()
+                ? cashCardRepository.findFirstByOwner(principal.getName(), size + 1)
+                : cashCardRepository.findByOwnerAfter(principal.getName(),
+                        after.get().amount(), after.get().id(), size + 1);
+        String eTag = pageETag(cashCards);
+
+        if (cashCards.size() <= size) {
+            return ResponseEntity.ok().eTag(eTag).varyBy(HttpHeaders.ACCEPT).body(cashCards);
+        }
+
+        List<CashCard> page = cashCards.subList(0, size);
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .header(NEXT_CURSOR_HEADER, KeysetCursor.after(page.get(size - 1)).encode())
+                .body(page);
+    }
+
+    @GetMapping("/summary")
+    private ResponseEntity<CashCardSummary> summarize(Principal principal) {
+        return ResponseEntity.ok(cashCardRepository.summarizeByOwner(principal.getName()));
     }
 
     @GetMapping("/{requestedId}")
@@ -54,8 +183,12 @@ class CashCardController {
         Optional<CashCard> cashCard = findCashCard(requestedId, principal);
 
         if (cashCard.isPresent()) {
-            return ResponseEntity.ok(cashCard.get());
+            return ResponseEntity.ok()
+                    .eTag(Long.toString(cashCard.get().version()))
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(cashCard.get());
         } else {
+            rejectedFinds.increment();
             return ResponseEntity.notFound().build();
         }
     }
@@ -63,9 +196,13 @@ class CashCardController {
     @PostMapping
     private ResponseEntity<Void> createCashCard(@RequestBody CashCard newCashCardRequest,
             UriComponentsBuilder uriComponentsBuilder, Principal principal) {
+        if (newCashCardRequest.amount() == null) {
+            return ResponseEntity.badRequest().build();
+        }
 
         CashCard cashCard = new CashCard(null, newCashCardRequest.amount(), principal.getName());
         CashCard cashCardSaved = cashCardRepository.save(cashCard);
+        changeFeed.publish(principal.getName(), CashCardChange.created(cashCardSaved.id(), cashCardSaved.amount()));
 
         URI uriNewCashCard = uriComponentsBuilder.path("/cashcards/{id}")
                 .buildAndExpand(cashCardSaved.id()).toUri();
@@ -75,32 +212,152 @@ class CashCardController {
 
     @PutMapping("/{requestedId}")
     private ResponseEntity<Void> updateAnExistingCashCard(@PathVariable Long requestedId,
-            @RequestBody CashCard cashCardUpdate, Principal principal) {
-
-        Optional<CashCard> cashCard = findCashCard(requestedId, principal);
+            @RequestBody CashCard cashCardUpdate,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            Principal principal) {
+        if (cashCardUpdate.amount() == null) {
+            return ResponseEntity.badRequest().build();
+        }
 
-        if (cashCard.isPresent()) {
-            CashCard cashCardFinal = new CashCard(cashCard.get().id(), cashCardUpdate.amount(), principal.getName());
-            cashCardRepository.save(cashCardFinal);
+        Long expectedVersion = ifMatch == null ? null : expectedVersion(ifMatch);
+        try (CashCardChangeFeed.Guard guard = changeFeed.guard(List.of(requestedId))) {
+            if (updateAmount(requestedId, principal.getName(), cashCardUpdate.amount(), expectedVersion)) {
+                changeFeed.publish(principal.getName(), CashCardChange.updated(requestedId, cashCardUpdate.amount()));
+                return ResponseEntity.noContent().build();
+            }
+        }
 
-            return ResponseEntity.noContent().build();
-        } else {
-            return ResponseEntity.notFound().build();
+        if (expectedVersion != null && findCashCard(requestedId, principal).isPresent()) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
         }
+
+        rejectedUpdates.increment();
+        return ResponseEntity.notFound().build();
     }
 
     @DeleteMapping("/{id}")
     private ResponseEntity<Void> deleteCashCard(@PathVariable Long id, Principal principal) {
-        if (cashCardRepository.existsByIdAndOwner(id, principal.getName())) {
-            cashCardRepository.deleteById(id);
-            return ResponseEntity.noContent().build();
+        try (CashCardChangeFeed.Guard guard = changeFeed.guard(List.of(id))) {
+            if (delete(id, principal.getName())) {
+                changeFeed.publish(principal.getName(), CashCardChange.deleted(id));
+                return ResponseEntity.noContent().build();
+            }
         }
-        
+
+        rejectedDeletes.increment();
         return ResponseEntity.notFound().build();
     }
 
+    @PostMapping("/transfer")
+    private ResponseEntity<Void> transfer(@RequestBody CashCardTransfer transfer, Principal principal)
+            throws InterruptedException {
+        if (transfer.from() == null || transfer.to() == null || transfer.from().equals(transfer.to())
+                || transfer.amount() <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        String owner = principal.getName();
+        List<Long> ids = List.of(transfer.from(), transfer.to());
+        TransferResult result;
+        try (CashCardChangeFeed.Guard guard = changeFeed.guard(ids)) {
+            result = writeBehind != null
+                    ? writeBehind.whenApplied(ids, ()
+                            -> cashCardJdbcRepository.transfer(transfer.from(), transfer.to(), owner, transfer.amount()))
+                    : cashCardJdbcRepository.transfer(transfer.from(), transfer.to(), owner, transfer.amount());
+
+            if (result.outcome() == TransferResult.Outcome.TRANSFERRED) {
+                changeFeed.publish(owner, CashCardChange.updated(result.from().id(), result.from().amount()));
+                changeFeed.publish(owner, CashCardChange.updated(result.to().id(), result.to().amount()));
+            }
+        } catch (TimeoutException e) {
+            // The journal applier is behind or failing; nothing was written
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+
+        switch (result.outcome()) {
+            case TRANSFERRED -> {
+                return ResponseEntity.noContent().build();
+            }
+            case INSUFFICIENT_FUNDS, BALANCE_OVERFLOW -> {
+                return ResponseEntity.unprocessableEntity().build();
+            }
+            default -> {
+                rejectedTransfers.increment();
+                return ResponseEntity.notFound().build();
+            }
+        }
+    }
+
     private Optional<CashCard> findCashCard(Long cardId, Principal principal) {
-        return cashCardRepository.findByIdAndOwner(cardId, principal.getName());
+        Optional<CashCard> cashCard = writeBehind != null
+                ? writeBehind.findById(cardId)
+                : cashCardRepository.findById(cardId);
+
+        return cashCard.filter(found -> found.owner().equals(principal.getName()));
+    }
+
+    private boolean updateAmount(Long id, String owner, long amount, Long expectedVersion) {
+        if (writeBehind != null) {
+            return writeBehind.updateAll(List.of(new CashCard(id, amount, owner, expectedVersion)))[0] > 0;
+        }
+
+        return expectedVersion == null
+                ? cashCardRepository.updateAmountByIdAndOwner(id, owner, amount) > 0
+                : cashCardRepository.updateAmountByIdAndOwnerAndVersion(id, owner, amount, expectedVersion) > 0;
+    }
+
+    private boolean delete(Long id, String owner) {
+        if (writeBehind != null) {
+            return writeBehind.deleteAll(List.of(id), owner)[0] > 0;
+        }
+
+        return cashCardRepository.deleteByIdAndOwner(id, owner) > 0;
+    }
+
+    /**
+     * The version a strong {@code If-Match} ETag names, {@code null} for
+     * {@code *}, and {@link #NO_VERSION} for anything else, weak or several
+     * ETags included.
+     */
+    private static Long expectedVersion(String ifMatch) {
+        String eTag = ifMatch.trim();
+        if (eTag.equals("*")) {
+            return null;
+        }
+        if (eTag.length() < 3 || !eTag.startsWith("\"") || !eTag.endsWith("\"")) {
+            return NO_VERSION;
+        }
+
+        try {
+            return Long.parseLong(eTag.substring(1, eTag.length() - 1));
+        } catch (NumberFormatException e) {
+            return NO_VERSION;
+        }
+    }
+
+    private static String pageETag(List<CashCard> cashCards) {
+        return pageETag(cashCards.stream()
+                .map(cashCard -> cashCard.id() + ":" + cashCard.version())
+                .collect(Collectors.joining(",")));
+    }
+
+    /**
+     * Digests the {@code id:version} list of a page, in the form
+     * {@link CashCardRepository#findVersionsByOwner} returns it. The ETag is
+     * weak: it stands for the cards on the page in any encoding, and Tomcat
+     * does not compress responses with a strong one.
+     */
+    private static String pageETag(String versions) {
+        return "W/\"" + DigestUtils.md5DigestAsHex(versions.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    private static Counter ownershipRejected(MeterRegistry meterRegistry, String operation) {
+        return Counter.builder(OWNERSHIP_REJECTED_METRIC)
+                .description("Card requests answered with 404 because no card with that id belongs to the principal")
+                .tag("operation", operation)
+                .register(meterRegistry);
     }
 
 }
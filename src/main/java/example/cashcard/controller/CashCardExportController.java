@@ -0,0 +1,131 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import example.cashcard.model.CashCard;
+import example.cashcard.model.MinorUnits;
+import example.cashcard.repository.CashCardJdbcRepository;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Streams every card of the principal as NDJSON or CSV. Rows go from the JDBC
+ * cursor to the response one at a time, so memory use does not depend on how
+ * many cards the owner has and a slow client simply slows the cursor down.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+@RestController
+@RequestMapping("/cashcards/export")
+class CashCardExportController {
+
+    static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private final CashCardJdbcRepository cashCardJdbcRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private CashCardExportController(CashCardJdbcRepository cashCardJdbcRepository, ObjectMapper objectMapper) {
+        this.cashCardJdbcRepository = cashCardJdbcRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping
+    private ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "ndjson") String format,
+            Principal principal) {
+        String owner = principal.getName();
+
+        return switch (format) {
+            case "ndjson" ->
+                ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(outputStream -> exportNdjson(owner, outputStream));
+            case "csv" ->
+                ResponseEntity.ok()
+                .contentType(TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"cashcards.csv\"")
+                .body(outputStream -> exportCsv(owner, outputStream));
+            default ->
+                ResponseEntity.badRequest().build();
+        };
+    }
+
+    private void exportNdjson(String owner, OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            forEachCashCard(owner, cashCard -> {
+                generator.writeObject(cashCard);
+                generator.writeRaw('\n');
+            });
+        }
+    }
+
+    private void exportCsv(String owner, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        char[] amount = new char[MinorUnits.MAX_LENGTH];
+
+        writer.write("id,amount,owner\n");
+        forEachCashCard(owner, cashCard -> {
+            writer.write(Long.toString(cashCard.id()));
+            writer.write(',');
+            int position = MinorUnits.format(cashCard.amount(), amount);
+            writer.write(amount, position, amount.length - position);
+            writer.write(',');
+            writeCsvField(writer, cashCard.owner());
+            writer.write('\n');
+        });
+        writer.flush();
+    }
+
+    private void forEachCashCard(String owner, CashCardWriter cashCardWriter) throws IOException {
+        try {
+            cashCardJdbcRepository.forEachByOwner(owner, cashCard -> {
+                try {
+                    cashCardWriter.write(cashCard);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    @FunctionalInterface
+    private interface CashCardWriter {
+
+        void write(CashCard cashCard) throws IOException;
+
+    }
+
+}
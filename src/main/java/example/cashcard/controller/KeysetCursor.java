@@ -0,0 +1,44 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.controller;
+
+import example.cashcard.model.CashCard;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Opaque continuation token for keyset paging over the {@code (amount, id)}
+ * sort key.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+public record KeysetCursor(long amount, Long id) {
+
+    public static KeysetCursor after(CashCard cashCard) {
+        return new KeysetCursor(cashCard.amount(), cashCard.id());
+    }
+
+    public static Optional<KeysetCursor> decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(':');
+            if (separator < 0) {
+                return Optional.empty();
+            }
+
+            return Optional.of(new KeysetCursor(Long.parseLong(decoded.substring(0, separator)),
+                    Long.valueOf(decoded.substring(separator + 1))));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((amount + ":" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+}
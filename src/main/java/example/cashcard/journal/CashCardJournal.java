@@ -0,0 +1,381 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of card mutations in a memory-mapped file.
+ * <p>
+ * Appends only copy the record into the mapping; a single sync thread flushes
+ * everything appended since its last flush with one {@code msync}, so
+ * concurrent writers share the cost of a flush (group commit). Records carry
+ * consecutive sequence numbers and a CRC, and the file header holds the
+ * sequence of the last record applied to the database. Once every appended
+ * record has been applied, appends start again at the beginning of the file.
+ * <p>
+ * Layout: {@code long appliedSequence} followed by records of
+ * {@code int length, int crc, long sequence, byte type, long id, long amount,
+ * short ownerLength, owner (UTF-8)}.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+public class CashCardJournal implements Closeable {
+
+    private static final int HEADER = Long.BYTES;
+
+    private static final int RECORD_HEADER = 2 * Integer.BYTES;
+
+    private static final int FIXED_PAYLOAD = Long.BYTES + 1 + Long.BYTES + Long.BYTES + Short.BYTES;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer buffer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition appendedCondition = lock.newCondition();
+
+    private final Condition durableCondition = lock.newCondition();
+
+    private final Condition unappliedCondition = lock.newCondition();
+
+    private final Condition spaceCondition = lock.newCondition();
+
+    private final Queue<JournalRecord> unapplied = new ArrayDeque<>();
+
+    private final Thread syncThread;
+
+    private int position;
+
+    private int syncedPosition;
+
+    private long epoch;
+
+    private long appendedSequence;
+
+    private long durableSequence;
+
+    private long appliedSequence;
+
+    private boolean closed;
+
+    private IOException syncFailure;
+
+    /**
+     * Opens or creates the journal at {@code file}. Records that were appended
+     * but not yet applied before the last shutdown are queued again, in order,
+     * for {@link #takeUnapplied}.
+     */
+    public CashCardJournal(Path file, int size) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+        recover();
+
+        this.syncThread = new Thread(this::syncLoop, "cashcard-journal-sync");
+        this.syncThread.setDaemon(true);
+        this.syncThread.start();
+    }
+
+    /**
+     * Appends a mutation and returns it with its sequence number. The record is
+     * not durable until {@link #awaitDurable} returns for that sequence.
+     */
+    public JournalRecord append(JournalRecord.Type type, long id, String owner, long amount)
+            throws InterruptedIOException {
+        byte[] ownerBytes = owner.getBytes(StandardCharsets.UTF_8);
+        int length = FIXED_PAYLOAD + ownerBytes.length;
+        if (HEADER + RECORD_HEADER + length > buffer.capacity()) {
+            throw new IllegalArgumentException("Record larger than the journal");
+        }
+
+        lock.lock();
+        try {
+            while (position + RECORD_HEADER + length > buffer.capacity()) {
+                checkOpen();
+                spaceCondition.await();
+            }
+            checkOpen();
+
+            JournalRecord record = new JournalRecord(appendedSequence + 1, type, id, owner, amount);
+            ByteBuffer payload = ByteBuffer.allocate(length)
+                    .putLong(record.sequence())
+                    .put((byte) type.ordinal())
+                    .putLong(id)
+                    .putLong(amount)
+                    .putShort((short) ownerBytes.length)
+                    .put(ownerBytes);
+            CRC32C crc = new CRC32C();
+            crc.update(payload.array());
+
+            buffer.putInt(position, length);
+            buffer.putInt(position + Integer.BYTES, (int) crc.getValue());
+            buffer.put(position + RECORD_HEADER, payload.array());
+            position += RECORD_HEADER + length;
+
+            appendedSequence = record.sequence();
+            unapplied.add(record);
+            appendedCondition.signal();
+            unappliedCondition.signal();
+
+            return record;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until every record up to {@code sequence} has been flushed. The
+     * sync thread drains everything appended before it stops, so this also
+     * returns for records appended before {@link #close()}.
+     */
+    public void awaitDurable(long sequence) throws IOException {
+        lock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (syncFailure != null) {
+                    throw new IOException("Journal flush failed", syncFailure);
+                }
+                durableCondition.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes up to {@code max} records, in sequence order, that still have to
+     * be applied to the database, waiting up to {@code timeout} for the first.
+     */
+    public List<JournalRecord> takeUnapplied(int max, long timeout, TimeUnit unit) throws InterruptedException {
+        lock.lock();
+        try {
+            long nanos = unit.toNanos(timeout);
+            while (unapplied.isEmpty() && !closed) {
+                if (nanos <= 0) {
+                    return List.of();
+                }
+                nanos = unappliedCondition.awaitNanos(nanos);
+            }
+
+            int count = Math.min(max, unapplied.size());
+            JournalRecord[] records = new JournalRecord[count];
+            for (int i = 0; i < count; i++) {
+                records[i] = unapplied.remove();
+            }
+            return List.of(records);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records that every record up to {@code sequence} is in the database, so
+     * replay will skip it. Frees the whole file once nothing is left to apply.
+     * Only the applier calls this, and the sync thread never flushes the
+     * header, so the header is written and flushed outside the lock.
+     */
+    public void markApplied(long sequence) {
+        long applied = Math.max(getAppliedSequence(), sequence);
+        buffer.putLong(0, applied);
+        // Flushed before the sequence is published: from then on transfers
+        // write these cards directly, and a replay of records the header still
+        // counted as unapplied would put their older amounts over a transfer.
+        buffer.force(0, HEADER);
+
+        lock.lock();
+        try {
+            appliedSequence = applied;
+
+            if (appliedSequence == appendedSequence && unapplied.isEmpty()) {
+                position = HEADER;
+                syncedPosition = HEADER;
+                epoch++;
+                spaceCondition.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getAppliedSequence() {
+        lock.lock();
+        try {
+            return appliedSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            appendedCondition.signalAll();
+            durableCondition.signalAll();
+            unappliedCondition.signalAll();
+            spaceCondition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            syncThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        buffer.force();
+        channel.close();
+    }
+
+    private void syncLoop() {
+        while (true) {
+            int from;
+            int to;
+            long sequence;
+            long syncEpoch;
+
+            lock.lock();
+            try {
+                while (durableSequence == appendedSequence && !closed) {
+                    appendedCondition.awaitUninterruptibly();
+                }
+                if (durableSequence == appendedSequence) {
+                    return;
+                }
+                from = syncedPosition;
+                to = position;
+                sequence = appendedSequence;
+                syncEpoch = epoch;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException failure = null;
+            try {
+                buffer.force(from, to - from);
+            } catch (UncheckedIOException e) {
+                failure = e.getCause();
+            }
+
+            lock.lock();
+            try {
+                if (failure != null) {
+                    syncFailure = failure;
+                } else {
+                    durableSequence = Math.max(durableSequence, sequence);
+                    if (syncEpoch == epoch) {
+                        syncedPosition = Math.max(syncedPosition, to);
+                    }
+                }
+                durableCondition.signalAll();
+                if (failure != null) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Scans the file from the start and stops at the first record that is
+     * torn (bad length or CRC) or that does not continue the sequence, which
+     * is where the last run stopped writing.
+     */
+    private void recover() {
+        appliedSequence = buffer.getLong(0);
+
+        int offset = HEADER;
+        long lastSequence = appliedSequence;
+        long expected = -1;
+        while (offset + RECORD_HEADER <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length < FIXED_PAYLOAD || offset + RECORD_HEADER + length > buffer.capacity()) {
+                break;
+            }
+
+            byte[] payload = new byte[length];
+            buffer.get(offset + RECORD_HEADER, payload);
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(offset + Integer.BYTES)) {
+                break;
+            }
+
+            JournalRecord record = decode(ByteBuffer.wrap(payload));
+            if (record == null || (expected >= 0 && record.sequence() != expected)) {
+                break;
+            }
+
+            if (record.sequence() > appliedSequence) {
+                unapplied.add(record);
+            }
+            lastSequence = Math.max(lastSequence, record.sequence());
+            expected = record.sequence() + 1;
+            offset += RECORD_HEADER + length;
+        }
+
+        position = offset;
+        syncedPosition = offset;
+        appendedSequence = lastSequence;
+        durableSequence = lastSequence;
+    }
+
+    private static JournalRecord decode(ByteBuffer payload) {
+        long sequence = payload.getLong();
+        int type = payload.get();
+        long id = payload.getLong();
+        long amount = payload.getLong();
+        int ownerLength = payload.getShort();
+        if (type < 0 || type >= JournalRecord.Type.values().length || ownerLength != payload.remaining()) {
+            return null;
+        }
+
+        byte[] owner = new byte[ownerLength];
+        payload.get(owner);
+
+        return new JournalRecord(sequence, JournalRecord.Type.values()[type], id,
+                new String(owner, StandardCharsets.UTF_8), amount);
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+    }
+
+}
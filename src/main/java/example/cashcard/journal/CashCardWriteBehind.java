@@ -0,0 +1,372 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.journal;
+
+import example.cashcard.model.CashCard;
+import example.cashcard.repository.CashCardJdbcRepository;
+import example.cashcard.repository.CashCardRepository;
+import example.cashcard.sharding.OwnerShardedDataSource;
+import example.cashcard.sharding.ShardContext;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Card updates and deletes acknowledged once they are durable in the
+ * {@link CashCardJournal}, and applied to {@code cash_card} afterwards in
+ * batches by a background thread.
+ * <p>
+ * Until a mutation is applied it is kept in memory by id, and
+ * {@link #findById} answers from there, so a client reads its own writes.
+ * Ownership is checked against that same view before a mutation is journaled,
+ * under a lock striped by id, so two requests for one card are journaled in
+ * the order they were checked. Creates still go straight to the database,
+ * because the id comes from it.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+public class CashCardWriteBehind implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(CashCardWriteBehind.class);
+
+    private static final int STRIPES = 64;
+
+    private static final long POLL_MILLIS = 100;
+
+    private static final long RETRY_MILLIS = 1000;
+
+    private final CashCardJournal journal;
+
+    private final CashCardRepository cashCardRepository;
+
+    private final CashCardJdbcRepository cashCardJdbcRepository;
+
+    private final OwnerShardedDataSource shardedDataSource;
+
+    private final int batchSize;
+
+    private final long applyTimeoutNanos;
+
+    /**
+     * Guards {@link #appliedCondition}; a lock rather than a monitor, so that
+     * transfers waiting on the applier do not pin virtual threads.
+     */
+    private final ReentrantLock appliedLock = new ReentrantLock();
+
+    /**
+     * Signalled whenever a batch has been applied.
+     */
+    private final Condition appliedCondition = appliedLock.newCondition();
+
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    private final Thread applier;
+
+    private volatile boolean running = true;
+
+    /**
+     * Replays whatever the journal still holds before returning, so the
+     * database is current before the first request is served.
+     *
+     * @param shardedDataSource the sharded data source, or {@code null} when
+     * sharding is off
+     * @param applyTimeout how long {@link #whenApplied} waits for the applier
+     */
+    public CashCardWriteBehind(CashCardJournal journal, CashCardRepository cashCardRepository,
+            CashCardJdbcRepository cashCardJdbcRepository, OwnerShardedDataSource shardedDataSource,
+            int batchSize, Duration applyTimeout) throws InterruptedException {
+        this.journal = journal;
+        this.cashCardRepository = cashCardRepository;
+        this.cashCardJdbcRepository = cashCardJdbcRepository;
+        this.shardedDataSource = shardedDataSource;
+        this.batchSize = batchSize;
+        this.applyTimeoutNanos = applyTimeout.toNanos();
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+
+        List<JournalRecord> replay;
+        while (!(replay = journal.takeUnapplied(batchSize, 0, TimeUnit.MILLISECONDS)).isEmpty()) {
+            apply(replay);
+        }
+
+        this.applier = new Thread(this::applyLoop, "cashcard-journal-applier");
+        this.applier.setDaemon(true);
+        this.applier.start();
+    }
+
+    /**
+     * The card with {@code id} as the next read of the database will see it,
+     * counting journaled mutations that are not applied yet.
+     */
+    public Optional<CashCard> findById(Long id) {
+        Pending mutation = pending.get(id);
+        if (mutation != null && mutation.sequence() > journal.getAppliedSequence()) {
+            return Optional.ofNullable(mutation.cashCard());
+        }
+
+        return cashCardRepository.findById(id);
+    }
+
+    /**
+     * Journals an amount change for every card owned by its {@code owner}
+     * and, if it has a {@code version}, still at that version. Returns, like
+     * {@link CashCardJdbcRepository#updateAll}, one count per card: 1 if it
+     * was journaled, 0 if there is no such card.
+     */
+    public int[] updateAll(List<CashCard> cashCards) {
+        int[] updated = new int[cashCards.size()];
+        long last = 0;
+        for (int i = 0; i < cashCards.size(); i++) {
+            CashCard cashCard = cashCards.get(i);
+            JournalRecord record = journal(JournalRecord.Type.UPDATE, cashCard.id(), cashCard.owner(),
+                    cashCard.amount(), cashCard.version());
+            if (record != null) {
+                updated[i] = 1;
+                last = record.sequence();
+            }
+        }
+
+        awaitDurable(last);
+        return updated;
+    }
+
+    /**
+     * Journals the deletion of every card in {@code ids} owned by
+     * {@code owner}, with one count per id as in
+     * {@link CashCardJdbcRepository#deleteAll}.
+     */
+    public int[] deleteAll(List<Long> ids, String owner) {
+        int[] deleted = new int[ids.size()];
+        long last = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            JournalRecord record = journal(JournalRecord.Type.DELETE, ids.get(i), owner, 0, null);
+            if (record != null) {
+                deleted[i] = 1;
+                last = record.sequence();
+            }
+        }
+
+        awaitDurable(last);
+        return deleted;
+    }
+
+    /**
+     * Runs {@code action}, which writes the cards in {@code ids} to the
+     * database itself, once every journaled mutation of those cards is
+     * applied. Their locks are held meanwhile, so nothing new is journaled for
+     * them until the action is done and the applier cannot later overwrite
+     * what it wrote. Locks are taken in stripe order, so two callers sharing
+     * cards never deadlock.
+     *
+     * @throws TimeoutException if the locks could not be taken or the
+     * mutations were not applied within the apply timeout, for instance
+     * because the database keeps failing; nothing has been written then
+     */
+    public <T> T whenApplied(Collection<Long> ids, Supplier<T> action)
+            throws InterruptedException, TimeoutException {
+        long deadline = System.nanoTime() + applyTimeoutNanos;
+        int[] stripes = ids.stream()
+                .mapToInt(id -> Math.floorMod(id.hashCode(), STRIPES))
+                .distinct()
+                .sorted()
+                .toArray();
+
+        int locked = 0;
+        try {
+            for (int stripe : stripes) {
+                if (!locks[stripe].tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    throw new TimeoutException("Cards " + ids + " are locked");
+                }
+                locked++;
+            }
+
+            appliedLock.lock();
+            try {
+                while (!isApplied(ids)) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new TimeoutException("Journaled mutations of cards " + ids + " are not applied yet");
+                    }
+                    appliedCondition.awaitNanos(remaining);
+                }
+            } finally {
+                appliedLock.unlock();
+            }
+
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                locks[stripes[i]].unlock();
+            }
+        }
+    }
+
+    private boolean isApplied(Collection<Long> ids) {
+        long appliedSequence = journal.getAppliedSequence();
+        for (Long id : ids) {
+            Pending mutation = pending.get(id);
+            if (mutation != null && mutation.sequence() > appliedSequence) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops the applier once everything journaled so far is applied. What
+     * cannot be applied stays in the journal for the next startup.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        applier.join();
+    }
+
+    private JournalRecord journal(JournalRecord.Type type, Long id, String owner, long amount,
+            Long expectedVersion) {
+        if (id == null) {
+            return null;
+        }
+
+        ReentrantLock lock = locks[Math.floorMod(id.hashCode(), STRIPES)];
+        lock.lock();
+        try {
+            Optional<CashCard> current = findById(id)
+                    .filter(cashCard -> cashCard.owner().equals(owner))
+                    .filter(cashCard -> expectedVersion == null || expectedVersion.equals(cashCard.version()));
+            if (current.isEmpty()) {
+                return null;
+            }
+
+            JournalRecord record = journal.append(type, id, owner, amount);
+            pending.put(id, new Pending(record.sequence(), type == JournalRecord.Type.DELETE
+                    ? null
+                    : new CashCard(id, amount, owner, current.get().version() + 1)));
+            return record;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitDurable(long sequence) {
+        if (sequence == 0) {
+            return;
+        }
+
+        try {
+            journal.awaitDurable(sequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void applyLoop() {
+        List<JournalRecord> batch = List.of();
+        while (true) {
+            try {
+                if (batch.isEmpty()) {
+                    batch = journal.takeUnapplied(batchSize, running ? POLL_MILLIS : 0, TimeUnit.MILLISECONDS);
+                    if (batch.isEmpty() && !running) {
+                        return;
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    apply(batch);
+                    batch = List.of();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    log.warn("Could not apply journaled card mutations on shutdown, they will be replayed", e);
+                    return;
+                }
+                log.warn("Applying {} journaled card mutations failed, retrying", batch.size(), e);
+                try {
+                    Thread.sleep(RETRY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies {@code records} with one JDBC batch per shard and mutation type.
+     * Updates of one card keep their order, and a card cannot be changed after
+     * its journaled delete, so applying them grouped rather than in sequence
+     * order gives the same result. Every update is applied, not just the last
+     * one of a card, so its version ends where {@link #findById} said it would.
+     */
+    private void apply(List<JournalRecord> records) {
+        Map<Integer, List<JournalRecord>> byShard = new LinkedHashMap<>();
+        for (JournalRecord record : records) {
+            int shard = shardedDataSource == null ? 0 : shardedDataSource.shardOf(record.owner());
+            byShard.computeIfAbsent(shard, key -> new ArrayList<>()).add(record);
+        }
+
+        for (Map.Entry<Integer, List<JournalRecord>> shard : byShard.entrySet()) {
+            if (shardedDataSource != null) {
+                ShardContext.set(shard.getKey());
+            }
+            try {
+                applyShard(shard.getValue());
+            } finally {
+                ShardContext.clear();
+            }
+        }
+
+        long appliedSequence = records.get(records.size() - 1).sequence();
+        journal.markApplied(appliedSequence);
+        pending.values().removeIf(mutation -> mutation.sequence() <= appliedSequence);
+        appliedLock.lock();
+        try {
+            appliedCondition.signalAll();
+        } finally {
+            appliedLock.unlock();
+        }
+    }
+
+    private void applyShard(List<JournalRecord> records) {
+        List<CashCard> updates = new ArrayList<>();
+        Map<String, List<Long>> deletesByOwner = new LinkedHashMap<>();
+        for (JournalRecord record : records) {
+            if (record.type() == JournalRecord.Type.UPDATE) {
+                updates.add(new CashCard(record.id(), record.amount(), record.owner()));
+            } else {
+                deletesByOwner.computeIfAbsent(record.owner(), owner -> new ArrayList<>()).add(record.id());
+            }
+        }
+
+        cashCardJdbcRepository.updateAll(updates);
+        deletesByOwner.forEach((owner, ids) -> cashCardJdbcRepository.deleteAll(ids, owner));
+    }
+
+    private record Pending(long sequence, CashCard cashCard) {
+
+    }
+
+}
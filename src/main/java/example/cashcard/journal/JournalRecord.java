@@ -0,0 +1,18 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.journal;
+
+/**
+ * One card mutation in the journal. {@code amount} is ignored for deletes.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+public record JournalRecord(long sequence, Type type, long id, String owner, long amount) {
+
+    public enum Type {
+        UPDATE, DELETE
+    }
+
+}
@@ -4,12 +4,32 @@
  */
 package example.cashcard.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Table;
 
 /**
+ * A cash card. {@code amount} is held in minor units (cents) and appears on the
+ * wire as a two-decimal number, e.g. {@code 12345} as {@code 123.45}.
+ * {@code version} goes up with every change; it travels as the card's ETag
+ * rather than in the JSON body, and is {@code null} for a card not saved yet.
+ * {@code amount} is only {@code null} in a request that left it out or sent
+ * {@code null}, which is answered 400 rather than taken as zero.
  *
  * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
  */
-public record CashCard(@Id Long id, Double amount, String owner) {
-    
+@Table
+public record CashCard(@Id Long id,
+        @JsonSerialize(using = MinorUnitsSerializer.class)
+        @JsonDeserialize(using = MinorUnitsDeserializer.class) Long amount,
+        String owner,
+        @Version @JsonIgnore Long version) {
+
+    public CashCard(Long id, long amount, String owner) {
+        this(id, amount, owner, null);
+    }
+
 }
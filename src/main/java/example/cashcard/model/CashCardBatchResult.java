@@ -0,0 +1,15 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.model;
+
+/**
+ * Outcome of one item of a batch request, reported with the HTTP status the
+ * equivalent single-item call would have returned.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+public record CashCardBatchResult(Long id, int status) {
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.util.Locale;
+
+/**
+ * A card created, updated or deleted by its owner, as sent on the change feed.
+ * The type is the name of the event rather than part of its data, and a
+ * deleted card has no amount.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CashCardChange(@JsonIgnore Type type, long id,
+        @JsonSerialize(using = MinorUnitsSerializer.class) Long amount) {
+
+    public static CashCardChange created(long id, long amount) {
+        return new CashCardChange(Type.CREATED, id, amount);
+    }
+
+    public static CashCardChange updated(long id, long amount) {
+        return new CashCardChange(Type.UPDATED, id, amount);
+    }
+
+    public static CashCardChange deleted(long id) {
+        return new CashCardChange(Type.DELETED, id, null);
+    }
+
+    public enum Type {
+        CREATED, UPDATED, DELETED;
+
+        public String eventName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+    }
+
+}
@@ -0,0 +1,22 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.math.BigInteger;
+
+/**
+ * Balance aggregates over all of an owner's cards, in cents. {@code min} and
+ * {@code max} are {@code null} when the owner has no cards. Every card fits in
+ * a {@code long}, but their {@code sum} need not.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+public record CashCardSummary(long count,
+        @JsonSerialize(using = MinorUnitsSerializer.class) BigInteger sum,
+        @JsonSerialize(using = MinorUnitsSerializer.class) Long min,
+        @JsonSerialize(using = MinorUnitsSerializer.class) Long max) {
+
+}
@@ -0,0 +1,20 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * Moves {@code amount} from card {@code from} to card {@code to}, both of the
+ * same owner.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+public record CashCardTransfer(Long from, Long to,
+        @JsonSerialize(using = MinorUnitsSerializer.class)
+        @JsonDeserialize(using = MinorUnitsDeserializer.class) long amount) {
+
+}
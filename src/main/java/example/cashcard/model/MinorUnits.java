@@ -0,0 +1,138 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions between amounts held as {@code long} minor units (cents) and
+ * their two-decimal text form, without going through binary floating point.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+public final class MinorUnits {
+
+    public static final int SCALE = 2;
+
+    /**
+     * Enough room for the sign, the 17 integer digits of
+     * {@link Long#MIN_VALUE} / 100, the point and two decimals.
+     */
+    public static final int MAX_LENGTH = 21;
+
+    /**
+     * More integer digits than any amount in a {@code long} of cents has.
+     */
+    private static final int MAX_INTEGER_DIGITS = 19;
+
+    private MinorUnits() {
+    }
+
+    /**
+     * Writes {@code cents} right-aligned into {@code buffer}, which must hold at
+     * least {@link #MAX_LENGTH} chars, and returns the index of the first char.
+     */
+    public static int format(long cents, char[] buffer) {
+        int position = buffer.length;
+        boolean negative = cents < 0;
+        // Work on the non-positive value so that Long.MIN_VALUE needs no special case.
+        long value = negative ? cents : -cents;
+
+        int fraction = (int) -(value % 100);
+        value /= 100;
+
+        buffer[--position] = (char) ('0' + fraction % 10);
+        buffer[--position] = (char) ('0' + fraction / 10);
+        buffer[--position] = '.';
+        do {
+            buffer[--position] = (char) ('0' - value % 10);
+            value /= 10;
+        } while (value != 0);
+
+        if (negative) {
+            buffer[--position] = '-';
+        }
+        return position;
+    }
+
+    public static String format(long cents) {
+        char[] buffer = new char[MAX_LENGTH];
+        int position = format(cents, buffer);
+        return new String(buffer, position, buffer.length - position);
+    }
+
+    /**
+     * Parses a decimal amount into cents. Digits beyond the second decimal
+     * place are only accepted when they are zeros.
+     *
+     * @throws NumberFormatException if the text is not a number
+     * @throws ArithmeticException if the amount has fractions of a cent or does
+     * not fit in a {@code long}
+     */
+    public static long parse(String text) {
+        int length = text.length();
+        int position = 0;
+        boolean negative = false;
+        if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+            negative = text.charAt(0) == '-';
+            position++;
+        }
+        if (position == length) {
+            throw new NumberFormatException("Not an amount: \"" + text + "\"");
+        }
+
+        // Accumulate negatively, like Long.parseLong, so that the full range is available.
+        long value = 0;
+        int fractionDigits = -1;
+        for (; position < length; position++) {
+            char c = text.charAt(position);
+            if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else if (c >= '0' && c <= '9') {
+                if (fractionDigits >= SCALE) {
+                    if (c != '0') {
+                        throw new ArithmeticException("Amount has fractions of a cent: \"" + text + "\"");
+                    }
+                    continue;
+                }
+                value = Math.subtractExact(Math.multiplyExact(value, 10), c - '0');
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (c == 'e' || c == 'E') {
+                return parseScientific(text);
+            } else {
+                throw new NumberFormatException("Not an amount: \"" + text + "\"");
+            }
+        }
+
+        for (int i = Math.max(fractionDigits, 0); i < SCALE; i++) {
+            value = Math.multiplyExact(value, 10);
+        }
+        return negative ? value : Math.negateExact(value);
+    }
+
+    /**
+     * The exponent is bounded before the amount is scaled: scaling
+     * {@code 1e10000000} alone takes seconds of CPU.
+     */
+    private static long parseScientific(String text) {
+        BigDecimal amount = new BigDecimal(text);
+        if (amount.signum() == 0) {
+            return 0;
+        }
+        if (amount.precision() - amount.scale() > MAX_INTEGER_DIGITS) {
+            throw new ArithmeticException("Amount does not fit in a long: \"" + text + "\"");
+        }
+        amount = amount.stripTrailingZeros();
+        if (amount.scale() > SCALE) {
+            throw new ArithmeticException("Amount has fractions of a cent: \"" + text + "\"");
+        }
+
+        return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Writes cents as a JSON number with two decimals, e.g. {@code 12345} as
+ * {@code 123.45}. Binary formats such as CBOR, which cannot take a number as
+ * text, get it as a decimal. Cents beyond a {@code long}, such as sums, are
+ * given as a {@link BigInteger} and written through {@link BigDecimal}.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+public class MinorUnitsSerializer extends StdSerializer<Number> {
+
+    public MinorUnitsSerializer() {
+        super(Number.class);
+    }
+
+    @Override
+    public void serialize(Number cents, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        if (cents instanceof BigInteger big) {
+            generator.writeNumber(new BigDecimal(big, MinorUnits.SCALE));
+            return;
+        }
+        if (!generator.canWriteFormattedNumbers()) {
+            generator.writeNumber(BigDecimal.valueOf(cents.longValue(), MinorUnits.SCALE));
+            return;
+        }
+
+        char[] buffer = new char[MinorUnits.MAX_LENGTH];
+        int position = MinorUnits.format(cents.longValue(), buffer);
+        generator.writeNumber(buffer, position, buffer.length - position);
+    }
+
+}
@@ -0,0 +1,262 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.repository;
+
+import example.cashcard.model.CashCard;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Hand-written JDBC access for the bulk paths, where issuing one statement per
+ * card through {@link CashCardRepository} would be too slow, and for transfers,
+ * which lock their rows explicitly. Every call runs in its own transaction,
+ * writes its rows in ascending id order, and evicts the affected ids from the
+ * card cache once that transaction has committed.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+@Repository
+public class CashCardJdbcRepository {
+
+    private static final String INSERT = "INSERT INTO cash_card (amount, owner) VALUES (:amount, :owner)";
+
+    private static final String UPDATE = "UPDATE cash_card SET amount = :amount, version = version + 1"
+            + " WHERE id = :id AND owner = :owner";
+
+    private static final String DELETE = "DELETE FROM cash_card WHERE id = :id AND owner = :owner";
+
+    private static final String SELECT_FOR_UPDATE = "SELECT id, amount, owner, version FROM cash_card"
+            + " WHERE id = :id AND owner = :owner FOR UPDATE";
+
+    private static final String ADD_AMOUNT = "UPDATE cash_card SET amount = amount + :amount, version = version + 1"
+            + " WHERE id = :id";
+
+    private static final String SELECT_BY_OWNER = "SELECT id, amount, owner FROM cash_card WHERE owner = ? ORDER BY id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Cache cashCardCache;
+
+    private final Timer insertAllTimer;
+
+    private final Timer updateAllTimer;
+
+    private final Timer deleteAllTimer;
+
+    private final Timer forEachByOwnerTimer;
+
+    private final Timer transferTimer;
+
+    public CashCardJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate, CacheManager cacheManager, MeterRegistry meterRegistry,
+            @Value("${cashcard.export.fetch-size}") int exportFetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getJdbcTemplate().getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(exportFetchSize);
+        this.transactionTemplate = transactionTemplate;
+        this.cashCardCache = cacheManager.getCache(CashCardRepository.CASH_CARDS_CACHE);
+        this.insertAllTimer = invocationTimer(meterRegistry, "insertAll");
+        this.updateAllTimer = invocationTimer(meterRegistry, "updateAll");
+        this.deleteAllTimer = invocationTimer(meterRegistry, "deleteAll");
+        this.forEachByOwnerTimer = invocationTimer(meterRegistry, "forEachByOwner");
+        this.transferTimer = invocationTimer(meterRegistry, "transfer");
+    }
+
+    public List<Long> insertAll(List<CashCard> cashCards) {
+        if (cashCards.isEmpty()) {
+            return List.of();
+        }
+
+        SqlParameterSource[] batch = cashCards.stream()
+                .map(cashCard -> new MapSqlParameterSource()
+                .addValue("amount", cashCard.amount())
+                .addValue("owner", cashCard.owner()))
+                .toArray(SqlParameterSource[]::new);
+
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+        insertAllTimer.record(() -> transactionTemplate.executeWithoutResult(status
+                -> jdbcTemplate.batchUpdate(INSERT, batch, keyHolder, new String[]{"ID"})));
+
+        List<Long> ids = new ArrayList<>(cashCards.size());
+        keyHolder.getKeyList().forEach(keys -> ids.add(((Number) keys.values().iterator().next()).longValue()));
+        evict(ids);
+
+        return ids;
+    }
+
+    public int[] updateAll(List<CashCard> cashCards) {
+        if (cashCards.isEmpty()) {
+            return new int[0];
+        }
+
+        List<Long> ids = cashCards.stream().map(CashCard::id).toList();
+        int[] order = idOrder(ids);
+        SqlParameterSource[] batch = Arrays.stream(order)
+                .mapToObj(cashCards::get)
+                .map(cashCard -> new MapSqlParameterSource()
+                .addValue("id", cashCard.id())
+                .addValue("amount", cashCard.amount())
+                .addValue("owner", cashCard.owner()))
+                .toArray(SqlParameterSource[]::new);
+
+        int[] updated = updateAllTimer.record(()
+                -> transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(UPDATE, batch)));
+        evict(ids);
+
+        return inRequestOrder(updated, order);
+    }
+
+    public int[] deleteAll(List<Long> ids, String owner) {
+        if (ids.isEmpty()) {
+            return new int[0];
+        }
+
+        int[] order = idOrder(ids);
+        SqlParameterSource[] batch = Arrays.stream(order)
+                .mapToObj(ids::get)
+                .map(id -> new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("owner", owner))
+                .toArray(SqlParameterSource[]::new);
+
+        int[] deleted = deleteAllTimer.record(()
+                -> transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(DELETE, batch)));
+        evict(ids);
+
+        return inRequestOrder(deleted, order);
+    }
+
+    /**
+     * Moves {@code amount} from card {@code fromId} to card {@code toId} in one
+     * transaction, if both belong to {@code owner}, the first holds enough and
+     * the second's balance stays within a {@code long}.
+     * Both rows are locked before either is read for the check, always the
+     * lower id first, so two transfers between the same cards in opposite
+     * directions wait for each other instead of deadlocking.
+     */
+    public TransferResult transfer(Long fromId, Long toId, String owner, long amount) {
+        TransferResult result = transferTimer.record(() -> transactionTemplate.execute(status -> {
+            Optional<CashCard> first = lockForUpdate(Math.min(fromId, toId), owner);
+            Optional<CashCard> second = lockForUpdate(Math.max(fromId, toId), owner);
+            if (first.isEmpty() || second.isEmpty()) {
+                return TransferResult.of(TransferResult.Outcome.NOT_FOUND);
+            }
+
+            CashCard from = fromId < toId ? first.get() : second.get();
+            CashCard to = fromId < toId ? second.get() : first.get();
+            if (from.amount() < amount) {
+                return TransferResult.of(TransferResult.Outcome.INSUFFICIENT_FUNDS);
+            }
+            if (to.amount() > Long.MAX_VALUE - amount) {
+                return TransferResult.of(TransferResult.Outcome.BALANCE_OVERFLOW);
+            }
+
+            jdbcTemplate.batchUpdate(ADD_AMOUNT, new SqlParameterSource[]{
+                new MapSqlParameterSource().addValue("id", fromId).addValue("amount", -amount),
+                new MapSqlParameterSource().addValue("id", toId).addValue("amount", amount)});
+
+            return new TransferResult(TransferResult.Outcome.TRANSFERRED,
+                    new CashCard(fromId, from.amount() - amount, owner, from.version() + 1),
+                    new CashCard(toId, to.amount() + amount, owner, to.version() + 1));
+        }));
+        evict(List.of(fromId, toId));
+
+        return result;
+    }
+
+    /**
+     * Walks every card of {@code owner} in id order straight off the JDBC
+     * cursor, handing each row to {@code consumer} without collecting them.
+     */
+    public void forEachByOwner(String owner, Consumer<CashCard> consumer) {
+        forEachByOwnerTimer.record(() -> streamingJdbcTemplate.query(SELECT_BY_OWNER, (RowCallbackHandler) resultSet
+                -> consumer.accept(new CashCard(resultSet.getLong(1), resultSet.getLong(2), resultSet.getString(3))),
+                owner));
+    }
+
+    private Optional<CashCard> lockForUpdate(Long id, String owner) {
+        return jdbcTemplate.query(SELECT_FOR_UPDATE, new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("owner", owner), (resultSet, row)
+                -> new CashCard(resultSet.getLong(1), resultSet.getLong(2), resultSet.getString(3),
+                        resultSet.getLong(4)))
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Indexes of {@code ids} in ascending id order, the order {@link #transfer}
+     * locks rows in, so that a batch and a transfer sharing cards wait for each
+     * other instead of deadlocking. The sort is stable, so updates of one card
+     * keep their order.
+     */
+    private static int[] idOrder(List<Long> ids) {
+        return IntStream.range(0, ids.size())
+                .boxed()
+                .sorted(Comparator.comparing(ids::get, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private static int[] inRequestOrder(int[] counts, int[] order) {
+        int[] inRequestOrder = new int[counts.length];
+        for (int i = 0; i < order.length; i++) {
+            inRequestOrder[order[i]] = counts[i];
+        }
+        return inRequestOrder;
+    }
+
+    private void evict(Collection<Long> ids) {
+        ids.forEach(id -> cashCardCache.evict(CashCardRepository.cacheKey(id)));
+    }
+
+    private static Timer invocationTimer(MeterRegistry meterRegistry, String method) {
+        return Timer.builder("cashcard.jdbc.invocations")
+                .description("Duration of CashCardJdbcRepository calls")
+                .tag("method", method)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * How a {@link #transfer} ended and, when it went through, both cards as
+     * it left them.
+     */
+    public record TransferResult(Outcome outcome, CashCard from, CashCard to) {
+
+        private static TransferResult of(Outcome outcome) {
+            return new TransferResult(outcome, null, null);
+        }
+
+        public enum Outcome {
+            TRANSFERRED, NOT_FOUND, INSUFFICIENT_FUNDS, BALANCE_OVERFLOW
+        }
+
+    }
+
+}
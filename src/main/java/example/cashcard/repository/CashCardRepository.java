@@ -5,9 +5,18 @@
 package example.cashcard.repository;
 
 import example.cashcard.model.CashCard;
+import example.cashcard.model.CashCardSummary;
+import example.cashcard.sharding.ShardContext;
+import java.util.List;
 import java.util.Optional;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jdbc.repository.query.Modifying;
+import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
@@ -16,10 +25,105 @@ import org.springframework.data.repository.PagingAndSortingRepository;
  * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
  */
 public interface CashCardRepository extends CrudRepository<CashCard, Long>, PagingAndSortingRepository<CashCard, Long> {
+
+    /**
+     * Cards by {@link #cacheKey}, including cached misses. Ownership is checked
+     * by the caller against {@link CashCard#owner()}.
+     */
+    String CASH_CARDS_CACHE = "cashCards";
+
+    /**
+     * The {@link #cacheKey} of the card whose id is the first argument.
+     */
+    String CACHE_KEY = "T(example.cashcard.repository.CashCardRepository).cacheKey(#p0)";
+
+    @Override
+    @Cacheable(cacheNames = CASH_CARDS_CACHE, key = CACHE_KEY, sync = true)
+    Optional<CashCard> findById(Long id);
+
+    @Override
+    @CachePut(cacheNames = CASH_CARDS_CACHE,
+            key = "T(example.cashcard.repository.CashCardRepository).cacheKey(#result.id)")
+    <S extends CashCard> S save(S cashCard);
+
+    @Override
+    @CacheEvict(cacheNames = CASH_CARDS_CACHE, key = CACHE_KEY)
+    void deleteById(Long id);
     
     Optional<CashCard> findByIdAndOwner(Long id, String owner);
     
-    Page<CashCard> findByOwner(String owner, PageRequest pageRequest);
+    Slice<CashCard> findByOwner(String owner, Pageable pageable);
+
+    /**
+     * Pages by owner order by the owner too, though every row shares it: H2
+     * only reads a page in owner index order, instead of sorting all the
+     * owner's cards, when the ORDER BY starts with the first index column.
+     */
+    @Query("SELECT * FROM cash_card WHERE owner = :owner ORDER BY owner, amount, id LIMIT :limit")
+    List<CashCard> findFirstByOwner(String owner, int limit);
+
+    @Query("""
+           SELECT * FROM cash_card
+           WHERE owner = :owner AND amount >= :amount AND (amount > :amount OR id > :id)
+           ORDER BY owner, amount, id LIMIT :limit
+           """)
+    List<CashCard> findByOwnerAfter(String owner, long amount, Long id, int limit);
+
+    /**
+     * {@code id:version} of each card on a page ordered by amount and id,
+     * comma separated: enough to tell whether the page changed, read off the
+     * owner index without fetching the rows.
+     */
+    @Query("""
+           SELECT COALESCE(LISTAGG(id || ':' || version, ',') WITHIN GROUP (ORDER BY amount, id), '')
+           FROM (SELECT amount, id, version FROM cash_card WHERE owner = :owner
+                 ORDER BY owner, amount, id LIMIT :limit OFFSET :offset) AS page
+           """)
+    String findVersionsByOwner(String owner, int limit, long offset);
+
+    @Query("""
+           SELECT COALESCE(LISTAGG(id || ':' || version, ',') WITHIN GROUP (ORDER BY amount, id), '')
+           FROM (SELECT amount, id, version FROM cash_card
+                 WHERE owner = :owner AND amount >= :amount AND (amount > :amount OR id > :id)
+                 ORDER BY owner, amount, id LIMIT :limit) AS page
+           """)
+    String findVersionsByOwnerAfter(String owner, long amount, Long id, int limit);
  
     boolean existsByIdAndOwner(Long id, String owner);
+
+    @Query("""
+           SELECT COUNT(*) AS "COUNT", COALESCE(SUM(amount), 0) AS "SUM",
+                  MIN(amount) AS "MIN", MAX(amount) AS "MAX"
+           FROM cash_card WHERE owner = :owner
+           """)
+    CashCardSummary summarizeByOwner(String owner);
+
+    @Modifying
+    @CacheEvict(cacheNames = CASH_CARDS_CACHE, key = CACHE_KEY)
+    @Query("UPDATE cash_card SET amount = :amount, version = version + 1 WHERE id = :id AND owner = :owner")
+    int updateAmountByIdAndOwner(Long id, String owner, long amount);
+
+    @Modifying
+    @CacheEvict(cacheNames = CASH_CARDS_CACHE, key = CACHE_KEY)
+    @Query("""
+           UPDATE cash_card SET amount = :amount, version = version + 1
+           WHERE id = :id AND owner = :owner AND version = :version
+           """)
+    int updateAmountByIdAndOwnerAndVersion(Long id, String owner, long amount, long version);
+
+    @Modifying
+    @CacheEvict(cacheNames = CASH_CARDS_CACHE, key = CACHE_KEY)
+    @Query("DELETE FROM cash_card WHERE id = :id AND owner = :owner")
+    int deleteByIdAndOwner(Long id, String owner);
+
+    /**
+     * Card {@code id} as read from the shard of the current thread, shard 0
+     * outside a request as for the connections. Under owner sharding a lookup
+     * only sees the caller's shard, and its miss must not hide the card from
+     * its owner.
+     */
+    static Object cacheKey(Long id) {
+        Integer shard = ShardContext.get();
+        return new SimpleKey(shard == null ? 0 : shard, id);
+    }
 }
@@ -0,0 +1,95 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.repository;
+
+import example.cashcard.security.CachingUserDetailsService;
+import example.cashcard.sharding.OwnerShardedDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes to the {@code users} and {@code authorities} tables read by the JDBC
+ * user store, in the database of {@link OwnerShardedDataSource#userStore}, and
+ * drops the users it wrote from the user cache once the transaction has
+ * committed.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+@Repository
+public class UserJdbcRepository {
+
+    private static final String MERGE_USER = "MERGE INTO users (username, password, enabled) KEY (username)"
+            + " VALUES (:username, :password, :enabled)";
+
+    private static final String DELETE_AUTHORITIES = "DELETE FROM authorities WHERE username = :username";
+
+    private static final String INSERT_AUTHORITY = "INSERT INTO authorities (username, authority)"
+            + " VALUES (:username, :authority)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final CachingUserDetailsService userDetailsService;
+
+    private final Timer importAllTimer;
+
+    public UserJdbcRepository(DataSource dataSource, CachingUserDetailsService userDetailsService,
+            MeterRegistry meterRegistry) {
+        DataSource userStore = OwnerShardedDataSource.userStore(dataSource);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(userStore);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(userStore));
+        this.userDetailsService = userDetailsService;
+        this.importAllTimer = Timer.builder("cashcard.users.import")
+                .description("Duration of bulk user imports")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Creates or replaces {@code users}, authorities included, as three JDBC
+     * batches in one transaction. Passwords are stored as given, so they must
+     * already be encoded.
+     */
+    public void importAll(List<? extends UserDetails> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+
+        List<SqlParameterSource> userBatch = new ArrayList<>(users.size());
+        List<SqlParameterSource> authorityBatch = new ArrayList<>(users.size());
+        for (UserDetails user : users) {
+            userBatch.add(new MapSqlParameterSource()
+                    .addValue("username", user.getUsername())
+                    .addValue("password", user.getPassword())
+                    .addValue("enabled", user.isEnabled()));
+            for (GrantedAuthority authority : user.getAuthorities()) {
+                authorityBatch.add(new MapSqlParameterSource()
+                        .addValue("username", user.getUsername())
+                        .addValue("authority", authority.getAuthority()));
+            }
+        }
+
+        SqlParameterSource[] userParameters = userBatch.toArray(SqlParameterSource[]::new);
+        importAllTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(MERGE_USER, userParameters);
+            jdbcTemplate.batchUpdate(DELETE_AUTHORITIES, userParameters);
+            jdbcTemplate.batchUpdate(INSERT_AUTHORITY, authorityBatch.toArray(SqlParameterSource[]::new));
+        }));
+
+        users.forEach(user -> userDetailsService.invalidate(user.getUsername()));
+    }
+
+}
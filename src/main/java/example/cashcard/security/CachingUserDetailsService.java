@@ -0,0 +1,57 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+/**
+ * {@link UserDetailsService} that remembers the users it loaded, so that
+ * repeated requests from the same owner do not query the user store each time.
+ *
+ * Every caller gets its own copy of the cached user, because Spring Security
+ * erases the password of the user it has authenticated. Unknown usernames are
+ * not cached. Whoever changes a user in the store calls {@link #invalidate};
+ * changes made behind its back show up within {@code timeToLive}.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+public class CachingUserDetailsService implements UserDetailsService {
+
+    private final UserDetailsService delegate;
+
+    private final Cache<String, UserDetails> users;
+
+    public CachingUserDetailsService(UserDetailsService delegate, long maximumSize, Duration timeToLive) {
+        this.delegate = delegate;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public UserDetails loadUserByUsername(String username) {
+        return User.withUserDetails(users.get(username, delegate::loadUserByUsername)).build();
+    }
+
+    public void invalidate(String username) {
+        users.invalidate(username);
+    }
+
+    public void invalidateAll() {
+        users.invalidateAll();
+    }
+
+    public Cache<String, UserDetails> getCache() {
+        return users;
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket per owner, kept as a single {@link AtomicLong}: the time at
+ * which the bucket would be full again (the "theoretical arrival time" of the
+ * generic cell rate algorithm). Taking a token is one compare-and-set, so
+ * concurrent requests of one owner never block each other.
+ * <p>
+ * Buckets live in a bounded cache and are dropped after
+ * {@code idleTimeout} without requests; a bucket that idle is full anyway, so
+ * dropping it changes nothing for the owner.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+public class OwnerRateLimiter {
+
+    private final long intervalNanos;
+
+    private final long burstNanos;
+
+    private final Ticker ticker;
+
+    private final Cache<String, AtomicLong> buckets;
+
+    public OwnerRateLimiter(double permitsPerSecond, int burst, long maximumOwners, Duration idleTimeout) {
+        this(permitsPerSecond, burst, maximumOwners, idleTimeout, Ticker.systemTicker());
+    }
+
+    OwnerRateLimiter(double permitsPerSecond, int burst, long maximumOwners, Duration idleTimeout, Ticker ticker) {
+        this.intervalNanos = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burstNanos = intervalNanos * burst;
+        this.ticker = ticker;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumOwners)
+                .expireAfterAccess(idleTimeout)
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Takes a token for {@code owner}. Returns 0 if there was one, otherwise
+     * the nanoseconds until there will be, without taking anything.
+     */
+    public long tryAcquire(String owner) {
+        AtomicLong bucket = buckets.get(owner, key -> new AtomicLong(Long.MIN_VALUE));
+        long now = ticker.read();
+
+        while (true) {
+            long full = bucket.get();
+            long next = Math.max(full, now) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(full, next)) {
+                return 0;
+            }
+        }
+    }
+
+    Cache<String, AtomicLong> getBuckets() {
+        return buckets;
+    }
+
+}
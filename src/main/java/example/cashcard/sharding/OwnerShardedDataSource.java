@@ -0,0 +1,80 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.sharding;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Routes every connection to the shard in {@link ShardContext}. Cards are
+ * placed by owner, and every card query is scoped to one owner, so a request
+ * never needs more than one shard. Work done outside a request (dialect
+ * detection, health checks) goes to shard 0, which also holds the users; the
+ * user store reaches it directly, see {@link #userStore(DataSource)}.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+public class OwnerShardedDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private final List<DataSource> shards;
+
+    public OwnerShardedDataSource(List<DataSource> shards) {
+        this.shards = List.copyOf(shards);
+
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < this.shards.size(); i++) {
+            targets.put(i, this.shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(this.shards.get(0));
+    }
+
+    /**
+     * The shard that holds the cards of {@code owner}. {@link String#hashCode()}
+     * is specified, so the placement is the same on every JVM; its low bits
+     * barely differ between similar names, so they are mixed first.
+     */
+    public int shardOf(String owner) {
+        int hash = owner.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+
+        return Math.floorMod(hash, shards.size());
+    }
+
+    /**
+     * The database of the users and authorities: the first shard of a sharded
+     * {@code dataSource}, not routed, so that a user is found and written in
+     * the same place whatever owner the current request is routed to.
+     */
+    public static DataSource userStore(DataSource dataSource) {
+        return dataSource instanceof OwnerShardedDataSource sharded ? sharded.shards.get(0) : dataSource;
+    }
+
+    public List<DataSource> getShards() {
+        return shards;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.get();
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource shard : shards) {
+            if (shard instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.sharding;
+
+/**
+ * The shard the current thread works against. Set once per request from the
+ * principal, before any transaction starts, and copied onto the threads that
+ * do work for that request.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static Integer get() {
+        return CURRENT.get();
+    }
+
+    public static void set(int shard) {
+        CURRENT.set(shard);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Returns a task that runs {@code task} against the shard of the calling
+     * thread, whatever thread it ends up on.
+     */
+    public static Runnable wrap(Runnable task) {
+        Integer shard = CURRENT.get();
+        if (shard == null) {
+            return task;
+        }
+
+        return () -> {
+            Integer previous = CURRENT.get();
+            CURRENT.set(shard);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+}
@@ -0,0 +1 @@
+CREATE INDEX IDX_CASH_CARD_OWNER_AMOUNT_ID ON cash_card (OWNER, AMOUNT, ID);
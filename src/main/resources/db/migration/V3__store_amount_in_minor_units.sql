@@ -0,0 +1,8 @@
+-- AMOUNT holds whole cents from here on; 123.45 is stored as 12345.
+DROP INDEX IDX_CASH_CARD_OWNER_AMOUNT_ID;
+
+UPDATE cash_card SET AMOUNT = AMOUNT * 100;
+
+ALTER TABLE cash_card ALTER COLUMN AMOUNT SET DATA TYPE BIGINT;
+
+CREATE INDEX IDX_CASH_CARD_OWNER_AMOUNT_ID ON cash_card (OWNER, AMOUNT, ID);
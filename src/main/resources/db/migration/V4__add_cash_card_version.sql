@@ -0,0 +1,7 @@
+-- VERSION goes up by one on every change of a card and backs its ETag.
+ALTER TABLE cash_card ADD COLUMN VERSION BIGINT DEFAULT 0 NOT NULL;
+
+-- Lets the ETag of a page of cards be computed from the index alone.
+DROP INDEX IDX_CASH_CARD_OWNER_AMOUNT_ID;
+
+CREATE INDEX IDX_CASH_CARD_OWNER_AMOUNT_ID ON cash_card (OWNER, AMOUNT, ID, VERSION);
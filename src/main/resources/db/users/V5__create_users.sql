@@ -0,0 +1,14 @@
+-- The users and authorities that Spring Security's JDBC user store reads.
+CREATE TABLE users
+(
+    USERNAME VARCHAR(256) NOT NULL PRIMARY KEY,
+    PASSWORD VARCHAR(500) NOT NULL,
+    ENABLED  BOOLEAN NOT NULL DEFAULT TRUE
+);
+
+CREATE TABLE authorities
+(
+    USERNAME  VARCHAR(256) NOT NULL REFERENCES users (USERNAME) ON DELETE CASCADE,
+    AUTHORITY VARCHAR(50) NOT NULL,
+    PRIMARY KEY (USERNAME, AUTHORITY)
+);
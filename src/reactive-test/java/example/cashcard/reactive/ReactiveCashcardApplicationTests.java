@@ -0,0 +1,518 @@
+package example.cashcard.reactive;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import example.cashcard.model.CashCard;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import net.minidev.json.JSONArray;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+
+/**
+ * The tests of {@code CashcardApplicationTests} for the endpoints the reactive
+ * application serves, unchanged, against {@link ReactiveCashcardApplication}.
+ */
+@SpringBootTest(classes = ReactiveCashcardApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.main.web-application-type=reactive")
+class ReactiveCashcardApplicationTests {
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Test
+    void shouldReturnACashCardWhenDataIsSaved() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/99", String.class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        DocumentContext context = JsonPath.parse(response.getBody());
+        Number id = context.read("$.id");
+
+        Assertions.assertThat(id).isNotNull();
+        Assertions.assertThat(id).isEqualTo(99);
+
+        Double amount = context.read("$.amount");
+
+        Assertions.assertThat(amount).isNotNull();
+        Assertions.assertThat(amount).isEqualTo(123.45);
+    }
+
+    @Test
+    void shouldNotReturnACashCardWhenUsingBadCredentials() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "BAD-CREDENTIALS")
+                .getForEntity("/cashcards/99", String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+
+        response = restTemplate
+                .withBasicAuth("BAD-USER", "abc123")
+                .getForEntity("/cashcards/99", String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void shouldNotReturnACashCardWithAnUnknownId() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/1000", String.class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        Assertions.assertThat(response.getBody()).isBlank();
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldCreateANewCashCard() {
+        CashCard cashCard = new CashCard(null, 25000L, null);
+
+        ResponseEntity<Void> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .postForEntity("/cashcards", cashCard, Void.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+
+        URI uriCreated = response.getHeaders().getLocation();
+
+        ResponseEntity<String> getResponse = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity(uriCreated, String.class);
+        Assertions.assertThat(getResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        DocumentContext context = JsonPath.parse(getResponse.getBody());
+        Number id = context.read("$.id");
+        Double amount = context.read("$.amount");
+
+        Assertions.assertThat(id).isNotNull();
+        Assertions.assertThat(amount).isEqualTo(250.00);
+    }
+
+    @Test
+    void shouldReturnAllCashCardsWhenListIsRequested() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards", String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        DocumentContext documentContext = JsonPath.parse(response.getBody());
+
+        int cashCardCount = documentContext.read("$.length()");
+        Assertions.assertThat(cashCardCount).isEqualTo(3);
+
+        JSONArray jsonArrayIds = documentContext.read("$..id");
+        Assertions.assertThat(jsonArrayIds).containsExactlyInAnyOrder(99, 100, 101);
+
+        JSONArray jsonArrayAmounts = documentContext.read("$..amount");
+        Assertions.assertThat(jsonArrayAmounts).containsExactlyInAnyOrder(123.45, 1.0, 150.00);
+    }
+
+    @Test
+    void shouldReturnAPageOfCashCards() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards?page=1&size=1", String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        DocumentContext documentContext = JsonPath.parse(response.getBody());
+        JSONArray page = documentContext.read("$[*]");
+        Assertions.assertThat(page.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReturnASortedPageOfCashCards() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards?page=0&size=1&sort=amount,desc", String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        DocumentContext documentContext = JsonPath.parse(response.getBody());
+
+        JSONArray array = documentContext.read("$[*]");
+        Assertions.assertThat(array.size()).isEqualTo(1);
+
+        double amount = documentContext.read("$[0].amount");
+        Assertions.assertThat(amount).isEqualTo(150.00);
+    }
+
+    @Test
+    void shouldReturnASortedPageOfCashCardsWithNoParametersAndUseDefaultValues() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards", String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        DocumentContext documentContext = JsonPath.parse(response.getBody());
+        JSONArray array = documentContext.read("$[*]");
+        Assertions.assertThat(array.size()).isEqualTo(3);
+
+        JSONArray arrayAmounts = documentContext.read("$..amount");
+        Assertions.assertThat(arrayAmounts).containsExactly(1.00, 123.45, 150.00);
+    }
+
+    @Test
+    void shouldReturnCashCardsPageByPageUsingACursor() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards?cursor=&size=2", String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        DocumentContext documentContext = JsonPath.parse(response.getBody());
+        JSONArray arrayAmounts = documentContext.read("$..amount");
+        Assertions.assertThat(arrayAmounts).containsExactly(1.00, 123.45);
+
+        String cursor = response.getHeaders().getFirst("X-Next-Cursor");
+        Assertions.assertThat(cursor).isNotBlank();
+
+        response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards?size=2&cursor=" + cursor, String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        documentContext = JsonPath.parse(response.getBody());
+        arrayAmounts = documentContext.read("$..amount");
+        Assertions.assertThat(arrayAmounts).containsExactly(150.00);
+        Assertions.assertThat(response.getHeaders().containsKey("X-Next-Cursor")).isFalse();
+    }
+
+    @Test
+    void shouldRejectAMalformedCursor() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards?cursor=not-a-cursor", String.class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void shouldAnswerNotModifiedWhileTheCashCardIsUnchanged() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/99", String.class);
+        String eTag = response.getHeaders().getETag();
+        Assertions.assertThat(eTag).isEqualTo("\"0\"");
+        Assertions.assertThat(response.getHeaders().getVary()).contains(HttpHeaders.ACCEPT);
+
+        ResponseEntity<String> notModified = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/99", HttpMethod.GET, new HttpEntity<>(ifNoneMatch(eTag)), String.class);
+
+        Assertions.assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        Assertions.assertThat(notModified.getHeaders().getETag()).isEqualTo(eTag);
+        Assertions.assertThat(notModified.getBody()).isNull();
+    }
+
+    @Test
+    void shouldAnswerNotModifiedWhileAPageIsUnchanged() {
+        for (String url : List.of("/cashcards?page=0&size=2", "/cashcards?sort=amount,desc", "/cashcards?cursor=&size=2")) {
+            ResponseEntity<String> response = restTemplate
+                    .withBasicAuth("sarah1", "abc123")
+                    .getForEntity(url, String.class);
+            String eTag = response.getHeaders().getETag();
+            Assertions.assertThat(eTag).startsWith("W/\"");
+            Assertions.assertThat(response.getHeaders().getVary()).contains(HttpHeaders.ACCEPT);
+
+            ResponseEntity<String> notModified = restTemplate
+                    .withBasicAuth("sarah1", "abc123")
+                    .exchange(url, HttpMethod.GET, new HttpEntity<>(ifNoneMatch(eTag)), String.class);
+
+            Assertions.assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+            Assertions.assertThat(notModified.getBody()).isNull();
+        }
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldChangeTheETagsOnceTheCashCardChanges() {
+        ResponseEntity<String> card = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/99", String.class);
+        ResponseEntity<String> page = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards", String.class);
+
+        restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/99", HttpMethod.PUT, new HttpEntity<>(new CashCard(null, 1999L, null)), Void.class);
+
+        ResponseEntity<String> changedCard = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/99", HttpMethod.GET,
+                        new HttpEntity<>(ifNoneMatch(card.getHeaders().getETag())), String.class);
+        Assertions.assertThat(changedCard.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(changedCard.getHeaders().getETag()).isEqualTo("\"1\"");
+
+        ResponseEntity<String> changedPage = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards", HttpMethod.GET,
+                        new HttpEntity<>(ifNoneMatch(page.getHeaders().getETag())), String.class);
+        Assertions.assertThat(changedPage.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(changedPage.getHeaders().getETag()).isNotEqualTo(page.getHeaders().getETag());
+    }
+
+    @Test
+    void shouldSummarizeTheCashCardsOfTheOwner() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/summary", String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        DocumentContext documentContext = JsonPath.parse(response.getBody());
+        Number count = documentContext.read("$.count");
+        Assertions.assertThat(count).isEqualTo(3);
+        Assertions.assertThat((Double) documentContext.read("$.sum")).isEqualTo(274.45);
+        Assertions.assertThat((Double) documentContext.read("$.min")).isEqualTo(1.00);
+        Assertions.assertThat((Double) documentContext.read("$.max")).isEqualTo(150.00);
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldSummarizeBalancesBeyondTheLargestCardExactly() {
+        for (int i = 0; i < 2; i++) {
+            ResponseEntity<Void> created = restTemplate
+                    .withBasicAuth("kumar2", "xyz789")
+                    .postForEntity("/cashcards", new CashCard(null, Long.MAX_VALUE, null), Void.class);
+            Assertions.assertThat(created.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        }
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("kumar2", "xyz789")
+                .getForEntity("/cashcards/summary", String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(response.getBody()).contains("\"sum\":184467440737095716.14");
+    }
+
+    @Test
+    void shouldRejectUsersWhoAreNotCardOwners() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("hank-owns-no-cards", "qrs456")
+                .getForEntity("/cashcards/99", String.class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+    @Test
+    void shouldNotAllowAccessToCashCardsTheyDoNotOwn() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/102", String.class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldUpdateAnExistingCashCard() {
+        CashCard cashCard = new CashCard(null, 1999L, null);
+        HttpEntity<CashCard> httpEntity = new HttpEntity<>(cashCard);
+
+        ResponseEntity<Void> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/99", HttpMethod.PUT, httpEntity, Void.class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+        ResponseEntity<String> responseGet = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/99", String.class);
+
+        Assertions.assertThat(responseGet.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        DocumentContext context = JsonPath.parse(responseGet.getBody());
+
+        Number id = context.read("$.id");
+        Double amount = context.read("$.amount");
+
+        Assertions.assertThat(id).isEqualTo(99);
+        Assertions.assertThat(amount).isEqualTo(19.99);
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldNotReturnAStaleCashCardAfterAnUpdate() {
+        ResponseEntity<String> responseGet = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/100", String.class);
+        Assertions.assertThat(responseGet.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        HttpEntity<CashCard> httpEntity = new HttpEntity<>(new CashCard(null, 4242L, null));
+        ResponseEntity<Void> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/100", HttpMethod.PUT, httpEntity, Void.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+        responseGet = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/100", String.class);
+        Assertions.assertThat(responseGet.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        Double amount = JsonPath.parse(responseGet.getBody()).read("$.amount");
+        Assertions.assertThat(amount).isEqualTo(42.42);
+    }
+
+    @Test
+    void shouldNotUpdateACashCardThatDoesNotExist() {
+        CashCard cashCard = new CashCard(null, 1999L, null);
+        HttpEntity<CashCard> httpEntity = new HttpEntity<>(cashCard);
+
+        ResponseEntity<Void> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/999999", HttpMethod.PUT, httpEntity, Void.class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void shouldNotUpdateACashCardThatIsOwnedBySomeoneElse() {
+        CashCard kumarsCard = new CashCard(null, 33333L, null);
+        HttpEntity<CashCard> request = new HttpEntity<>(kumarsCard);
+        ResponseEntity<Void> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/102", HttpMethod.PUT, request, Void.class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldUpdateACashCardOnlyIfItIsStillAtTheExpectedVersion() {
+        HttpHeaders stale = new HttpHeaders();
+        stale.setIfMatch("\"7\"");
+        ResponseEntity<Void> rejected = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/99", HttpMethod.PUT,
+                        new HttpEntity<>(new CashCard(null, 1999L, null), stale), Void.class);
+        Assertions.assertThat(rejected.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+        HttpHeaders current = new HttpHeaders();
+        current.setIfMatch("\"0\"");
+        ResponseEntity<Void> updated = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/99", HttpMethod.PUT,
+                        new HttpEntity<>(new CashCard(null, 1999L, null), current), Void.class);
+        Assertions.assertThat(updated.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+        ResponseEntity<Void> lost = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/99", HttpMethod.PUT,
+                        new HttpEntity<>(new CashCard(null, 2999L, null), current), Void.class);
+        Assertions.assertThat(lost.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/99", String.class);
+        Assertions.assertThat(response.getHeaders().getETag()).isEqualTo("\"1\"");
+        Double amount = JsonPath.read(response.getBody(), "$.amount");
+        Assertions.assertThat(amount).isEqualTo(19.99);
+    }
+
+    @Test
+    void shouldNotUpdateACashCardOwnedBySomeoneElseWhateverTheVersion() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfMatch("\"0\"");
+        ResponseEntity<Void> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/102", HttpMethod.PUT,
+                        new HttpEntity<>(new CashCard(null, 1999L, null), headers), Void.class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldDeleteAnExistingCashCard() {
+        ResponseEntity<Void> responseDelete = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/99", HttpMethod.DELETE, null, Void.class);
+
+        Assertions.assertThat(responseDelete.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/99", String.class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldApplyConcurrentUpdatesAndADeleteAtomically() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<HttpStatusCode>> updates = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                HttpEntity<CashCard> httpEntity = new HttpEntity<>(new CashCard(null, i * 100L, null));
+                updates.add(executor.submit(() -> restTemplate
+                        .withBasicAuth("sarah1", "abc123")
+                        .exchange("/cashcards/101", HttpMethod.PUT, httpEntity, Void.class)
+                        .getStatusCode()));
+            }
+            Future<HttpStatusCode> delete = executor.submit(() -> restTemplate
+                    .withBasicAuth("sarah1", "abc123")
+                    .exchange("/cashcards/101", HttpMethod.DELETE, null, Void.class)
+                    .getStatusCode());
+
+            for (Future<HttpStatusCode> update : updates) {
+                Assertions.assertThat(update.get()).isIn(HttpStatus.NO_CONTENT, HttpStatus.NOT_FOUND);
+            }
+            Assertions.assertThat(delete.get()).isEqualTo(HttpStatus.NO_CONTENT);
+        } finally {
+            executor.shutdown();
+        }
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/101", String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void shouldNotDeleteACashCardThatDoesNotExist() {
+        ResponseEntity<Void> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/99999", HttpMethod.DELETE, null, Void.class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void shouldNotAllowDeletionOfCashCardsTheyDoNotOwn() {
+        ResponseEntity<Void> responseDelete = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/102", HttpMethod.GET, HttpEntity.EMPTY, Void.class);
+
+        Assertions.assertThat(responseDelete.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("kumar2", "xyz789")
+                .getForEntity("/cashcards/102", String.class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void contextLoads() {
+    }
+
+    private static HttpHeaders ifNoneMatch(String eTag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        return headers;
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.reactive;
+
+import example.cashcard.CashcardApplication;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Drives {@code GET /cashcards} on the servlet and on the reactive application,
+ * one after the other in this JVM, with a closed loop of
+ * {@code concurrency} clients each holding its own connection, and prints per
+ * concurrency level:
+ * <ul>
+ * <li>throughput and mean latency;</li>
+ * <li>the peak number of live threads above the idle application;</li>
+ * <li>heap retained after a full GC while the connections are still open,
+ * above the idle application, per connection. The client's share of it is the
+ * same for both stacks.</li>
+ * </ul>
+ * Arguments: seconds per level, then the concurrency levels; by default
+ * {@code 10 64 512 2048}. A page rather than a single card, because only the
+ * servlet application caches cards by id.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+public final class ReactiveLoadComparison {
+
+    private static final int CLIENT_THREADS = 4;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private ReactiveLoadComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Idle client connections close soon after each level instead of
+        // counting against the next one.
+        System.setProperty("jdk.httpclient.keepalive.timeout", "5");
+        Duration duration = Duration.ofSeconds(args.length > 0 ? Integer.parseInt(args[0]) : 10);
+        int[] concurrencies = args.length > 1
+                ? Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt).toArray()
+                : new int[]{64, 512, 2048};
+
+        System.out.printf("%-9s %11s %12s %13s %13s %14s %7s%n", "stack", "concurrency", "requests/s",
+                "mean latency", "extra threads", "heap/conn (KB)", "errors");
+        run("servlet", new SpringApplicationBuilder(CashcardApplication.class)
+                .web(WebApplicationType.SERVLET), duration, concurrencies);
+        run("reactive", new SpringApplicationBuilder(ReactiveCashcardApplication.class)
+                .web(WebApplicationType.REACTIVE), duration, concurrencies);
+    }
+
+    private static void run(String stack, SpringApplicationBuilder application, Duration duration,
+            int[] concurrencies) throws Exception {
+        try (ConfigurableApplicationContext context = application.run("--server.port=0",
+                "--logging.level.root=WARN",
+                "--cashcard.rate-limit.requests-per-second=1000000000",
+                "--cashcard.concurrency-limit.max-in-flight=1000000",
+                "--server.tomcat.max-connections=100000",
+                "--server.tomcat.accept-count=10000")) {
+            URI uri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                    + "/cashcards");
+            load(uri, 64, Duration.ofSeconds(5));
+
+            for (int concurrency : concurrencies) {
+                Thread.sleep(6000);
+                long idleHeap = retainedHeap();
+                int idleThreads = THREADS.getThreadCount();
+
+                Result result = load(uri, concurrency, duration);
+
+                System.out.printf("%-9s %11d %12.0f %10.2f ms %13d %14.1f %7d%n", stack, concurrency,
+                        result.completed() / (double) duration.toSeconds(),
+                        concurrency * (double) duration.toMillis() / Math.max(1, result.completed()),
+                        result.peakThreads() - idleThreads,
+                        (result.retainedHeap() - idleHeap) / 1024.0 / concurrency,
+                        result.failed());
+            }
+        }
+    }
+
+    private static Result load(URI uri, int concurrency, Duration duration) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENT_THREADS);
+        try {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(executor)
+                    .build();
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder()
+                            .encodeToString("sarah1:abc123".getBytes(StandardCharsets.UTF_8)))
+                    .build();
+
+            Loop loop = new Loop(client, request, System.nanoTime() + duration.toNanos(), concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                loop.send();
+            }
+
+            int peakThreads = 0;
+            while (!loop.done.await(100, TimeUnit.MILLISECONDS)) {
+                peakThreads = Math.max(peakThreads, THREADS.getThreadCount());
+            }
+
+            return new Result(loop.completed.sum(), loop.failed.sum(), peakThreads, retainedHeap());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static long retainedHeap() {
+        System.gc();
+        System.gc();
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    private record Result(long completed, long failed, int peakThreads, long retainedHeap) {
+
+    }
+
+    private static final class Loop {
+
+        private final HttpClient client;
+
+        private final HttpRequest request;
+
+        private final long deadline;
+
+        private final LongAdder completed = new LongAdder();
+
+        private final LongAdder failed = new LongAdder();
+
+        private final CountDownLatch done;
+
+        private Loop(HttpClient client, HttpRequest request, long deadline, int concurrency) {
+            this.client = client;
+            this.request = request;
+            this.deadline = deadline;
+            this.done = new CountDownLatch(concurrency);
+        }
+
+        private void send() {
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                if (error == null && response.statusCode() == 200) {
+                    completed.increment();
+                } else {
+                    failed.increment();
+                }
+
+                if (System.nanoTime() < deadline) {
+                    send();
+                } else {
+                    done.countDown();
+                }
+            });
+        }
+
+    }
+
+}
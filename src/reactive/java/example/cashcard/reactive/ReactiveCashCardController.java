@@ -0,0 +1,207 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.reactive;
+
+import example.cashcard.controller.KeysetCursor;
+import example.cashcard.model.CashCard;
+import example.cashcard.model.CashCardSummary;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The single-card, paging and summary endpoints of {@code CashCardController}
+ * with the same status codes, headers and ETags, returning {@link Mono}s so
+ * no thread waits on the database. A page's ETag is compared after the page
+ * is read; WebFlux still skips writing the body when it matches.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+@RestController
+@RequestMapping("/cashcards")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+class ReactiveCashCardController {
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final Sort DEFAULT_SORT = Sort.by(Sort.Direction.ASC, "amount", "id");
+
+    /**
+     * Leads every page's sort. All cards on a page share their owner, so it
+     * only lets the database read the page off the owner index in order.
+     */
+    private static final Sort BY_OWNER = Sort.by("owner");
+
+    private static final long NO_VERSION = -1;
+
+    private final ReactiveCashCardRepository cashCardRepository;
+
+    private ReactiveCashCardController(ReactiveCashCardRepository cashCardRepository) {
+        this.cashCardRepository = cashCardRepository;
+    }
+
+    @GetMapping
+    private Mono<ResponseEntity<List<CashCard>>> findAll(Pageable pageable,
+            @RequestParam(required = false) String cursor, Principal principal) {
+        if (cursor != null) {
+            return findAllAfter(cursor, pageable.getPageSize(), principal);
+        }
+
+        return cashCardRepository.findByOwner(principal.getName(),
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                        BY_OWNER.and(pageable.getSortOr(DEFAULT_SORT))))
+                .collectList()
+                .map(page -> ResponseEntity.ok().eTag(pageETag(page)).varyBy(HttpHeaders.ACCEPT).body(page));
+    }
+
+    private Mono<ResponseEntity<List<CashCard>>> findAllAfter(String cursor, int size, Principal principal) {
+        Flux<CashCard> cashCards;
+        if (cursor.isEmpty()) {
+            cashCards = cashCardRepository.findFirstByOwner(principal.getName(), size + 1);
+        } else {
+            Optional<KeysetCursor> after = KeysetCursor.decode(cursor);
+            if (after.isEmpty()) {
+                return Mono.just(ResponseEntity.badRequest().build());
+            }
+
+            cashCards = cashCardRepository.findByOwnerAfter(principal.getName(),
+                    after.get().amount(), after.get().id(), size + 1);
+        }
+
+        return cashCards.collectList().map(found -> {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .eTag(pageETag(found))
+                    .varyBy(HttpHeaders.ACCEPT);
+            if (found.size() <= size) {
+                return response.body(found);
+            }
+
+            List<CashCard> page = found.subList(0, size);
+            return response.header(NEXT_CURSOR_HEADER, KeysetCursor.after(page.get(size - 1)).encode())
+                    .body(page);
+        });
+    }
+
+    @GetMapping("/summary")
+    private Mono<CashCardSummary> summarize(Principal principal) {
+        return cashCardRepository.summarizeByOwner(principal.getName());
+    }
+
+    @GetMapping("/{requestedId}")
+    private Mono<ResponseEntity<CashCard>> findById(@PathVariable Long requestedId, Principal principal) {
+        return findCashCard(requestedId, principal)
+                .map(cashCard -> ResponseEntity.ok()
+                .eTag(Long.toString(cashCard.version()))
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(cashCard))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping
+    private Mono<ResponseEntity<Void>> createCashCard(@RequestBody CashCard newCashCardRequest,
+            UriComponentsBuilder uriComponentsBuilder, Principal principal) {
+        if (newCashCardRequest.amount() == null) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        return cashCardRepository.save(new CashCard(null, newCashCardRequest.amount(), principal.getName()))
+                .map(saved -> ResponseEntity.created(uriComponentsBuilder.path("/cashcards/{id}")
+                .buildAndExpand(saved.id()).toUri()).build());
+    }
+
+    @PutMapping("/{requestedId}")
+    private Mono<ResponseEntity<Void>> updateAnExistingCashCard(@PathVariable Long requestedId,
+            @RequestBody CashCard cashCardUpdate,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            Principal principal) {
+        if (cashCardUpdate.amount() == null) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        Long expectedVersion = ifMatch == null ? null : expectedVersion(ifMatch);
+        Mono<Integer> updated = expectedVersion == null
+                ? cashCardRepository.updateAmountByIdAndOwner(requestedId, principal.getName(),
+                        cashCardUpdate.amount())
+                : cashCardRepository.updateAmountByIdAndOwnerAndVersion(requestedId, principal.getName(),
+                        cashCardUpdate.amount(), expectedVersion);
+
+        return updated.flatMap(count -> {
+            if (count > 0) {
+                return Mono.just(ResponseEntity.noContent().build());
+            }
+            if (expectedVersion == null) {
+                return Mono.just(ResponseEntity.notFound().build());
+            }
+
+            return findCashCard(requestedId, principal)
+                    .map(found -> ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).<Void>build())
+                    .defaultIfEmpty(ResponseEntity.notFound().build());
+        });
+    }
+
+    @DeleteMapping("/{id}")
+    private Mono<ResponseEntity<Void>> deleteCashCard(@PathVariable Long id, Principal principal) {
+        return cashCardRepository.deleteByIdAndOwner(id, principal.getName())
+                .map(count -> count > 0
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build());
+    }
+
+    private Mono<CashCard> findCashCard(Long cardId, Principal principal) {
+        return cashCardRepository.findById(cardId)
+                .filter(found -> found.owner().equals(principal.getName()));
+    }
+
+    private static Long expectedVersion(String ifMatch) {
+        String eTag = ifMatch.trim();
+        if (eTag.equals("*")) {
+            return null;
+        }
+        if (eTag.length() < 3 || !eTag.startsWith("\"") || !eTag.endsWith("\"")) {
+            return NO_VERSION;
+        }
+
+        try {
+            return Long.parseLong(eTag.substring(1, eTag.length() - 1));
+        } catch (NumberFormatException e) {
+            return NO_VERSION;
+        }
+    }
+
+    /**
+     * Weak, like the page ETags of {@code CashCardController}: it stands for
+     * the cards on the page in any encoding.
+     */
+    private static String pageETag(List<CashCard> cashCards) {
+        return "W/\"" + DigestUtils.md5DigestAsHex(cashCards.stream()
+                .map(cashCard -> cashCard.id() + ":" + cashCard.version())
+                .collect(Collectors.joining(","))
+                .getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+}
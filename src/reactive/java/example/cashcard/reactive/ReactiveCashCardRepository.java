@@ -0,0 +1,59 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.reactive;
+
+import example.cashcard.model.CashCard;
+import example.cashcard.model.CashCardSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.data.repository.reactive.ReactiveSortingRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The R2DBC counterpart of {@code CashCardRepository}, with the same queries.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+public interface ReactiveCashCardRepository extends ReactiveCrudRepository<CashCard, Long>,
+        ReactiveSortingRepository<CashCard, Long> {
+
+    Flux<CashCard> findByOwner(String owner, Pageable pageable);
+
+    @Query("SELECT * FROM cash_card WHERE owner = :owner ORDER BY owner, amount, id LIMIT :limit")
+    Flux<CashCard> findFirstByOwner(String owner, int limit);
+
+    @Query("""
+           SELECT * FROM cash_card
+           WHERE owner = :owner AND amount >= :amount AND (amount > :amount OR id > :id)
+           ORDER BY owner, amount, id LIMIT :limit
+           """)
+    Flux<CashCard> findByOwnerAfter(String owner, long amount, Long id, int limit);
+
+    @Query("""
+           SELECT COUNT(*) AS "COUNT", COALESCE(SUM(amount), 0) AS "SUM",
+                  MIN(amount) AS "MIN", MAX(amount) AS "MAX"
+           FROM cash_card WHERE owner = :owner
+           """)
+    Mono<CashCardSummary> summarizeByOwner(String owner);
+
+    @Modifying
+    @Query("UPDATE cash_card SET amount = :amount, version = version + 1 WHERE id = :id AND owner = :owner")
+    Mono<Integer> updateAmountByIdAndOwner(Long id, String owner, long amount);
+
+    @Modifying
+    @Query("""
+           UPDATE cash_card SET amount = :amount, version = version + 1
+           WHERE id = :id AND owner = :owner AND version = :version
+           """)
+    Mono<Integer> updateAmountByIdAndOwnerAndVersion(Long id, String owner, long amount, long version);
+
+    @Modifying
+    @Query("DELETE FROM cash_card WHERE id = :id AND owner = :owner")
+    Mono<Integer> deleteByIdAndOwner(Long id, String owner);
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.reactive;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import javax.sql.DataSource;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.data.jdbc.JdbcRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.web.ReactivePageableHandlerMethodArgumentResolver;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.result.method.annotation.ArgumentResolverConfigurer;
+
+/**
+ * The {@code /cashcards} API on WebFlux and R2DBC, built with the
+ * {@code reactive} profile. Requests are served by a few event loop threads
+ * instead of a thread each, and the database is reached through a pool of
+ * R2DBC connections.
+ * <p>
+ * Flyway still migrates through JDBC, so the H2 database is opened twice from
+ * the same {@link DataSourceProperties}: through a plain JDBC
+ * {@link DataSource} that only Flyway uses, and through the R2DBC pool; Spring
+ * Data JDBC is left off so it does not claim the repositories. Only
+ * active in a reactive context, so the servlet application, which scans this
+ * package too, leaves it alone.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+@SpringBootApplication(exclude = JdbcRepositoriesAutoConfiguration.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReactiveCashcardApplication implements WebFluxConfigurer {
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactiveCashcardApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .run(args);
+    }
+
+    /**
+     * Reactor Netty rather than Tomcat, which Boot would otherwise pick because
+     * the servlet application keeps it on the classpath.
+     */
+    @Bean
+    NettyReactiveWebServerFactory reactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    DataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder()
+                .type(SimpleDriverDataSource.class)
+                .build();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    ConnectionPool connectionFactory(DataSourceProperties properties, R2dbcProperties r2dbcProperties) {
+        H2ConnectionConfiguration configuration = H2ConnectionConfiguration.builder()
+                .url(properties.determineUrl().substring("jdbc:h2:".length()))
+                .username(properties.determineUsername())
+                .password(properties.determinePassword())
+                .build();
+
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(new H2ConnectionFactory(configuration))
+                .initialSize(r2dbcProperties.getPool().getInitialSize())
+                .maxSize(r2dbcProperties.getPool().getMaxSize())
+                .maxIdleTime(r2dbcProperties.getPool().getMaxIdleTime())
+                .build());
+    }
+
+    @Override
+    public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
+        configurer.addCustomResolver(new ReactivePageableHandlerMethodArgumentResolver());
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.reactive;
+
+import example.cashcard.security.CachingPasswordEncoder;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authorization.AuthorityReactiveAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.MapReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * The rules of {@code SecurityConfig} as a {@link SecurityWebFilterChain}:
+ * HTTP Basic, with {@code /cashcards/**} for card owners only and
+ * {@code /actuator/metrics/**} and {@code /actuator/prometheus} for operators.
+ * The rate and concurrency limits of the servlet chain are not carried over.
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+class ReactiveSecurityConfig {
+
+    @Bean
+    SecurityWebFilterChain filterChain(ServerHttpSecurity http,
+            @Value("${cashcard.actuator.prometheus.public}") boolean publicScraping) {
+        return http
+                .authorizeExchange(exchange -> exchange
+                .pathMatchers("/cashcards/**").hasRole("CARD-OWNER")
+                .pathMatchers("/actuator/metrics/**").hasRole("ACTUATOR")
+                .pathMatchers("/actuator/prometheus").access(publicScraping
+                        ? (authentication, context) -> Mono.just(new AuthorizationDecision(true))
+                        : AuthorityReactiveAuthorizationManager.hasRole("ACTUATOR"))
+                .pathMatchers("/actuator/health").permitAll()
+                .anyExchange().authenticated())
+                .httpBasic(Customizer.withDefaults())
+                .csrf(csrf -> csrf.disable())
+                .build();
+    }
+
+    @Bean
+    PasswordEncoder passwordEncoder(
+            @Value("${cashcard.security.credential-cache.maximum-size}") long maximumSize,
+            @Value("${cashcard.security.credential-cache.time-to-live}") Duration timeToLive) {
+        return new CachingPasswordEncoder(new BCryptPasswordEncoder(), maximumSize, timeToLive);
+    }
+
+    @Bean
+    MapReactiveUserDetailsService testOnlyUsers(PasswordEncoder passwordEncoder) {
+        User.UserBuilder users = User.builder();
+
+        return new MapReactiveUserDetailsService(
+                users.username("sarah1")
+                        .password(passwordEncoder.encode("abc123"))
+                        .roles("CARD-OWNER")
+                        .build(),
+                users.username("hank-owns-no-cards")
+                        .password(passwordEncoder.encode("qrs456"))
+                        .roles("NON-OWNER")
+                        .build(),
+                users.username("kumar2")
+                        .password(passwordEncoder.encode("xyz789"))
+                        .roles("CARD-OWNER")
+                        .build(),
+                users.username("ops1")
+                        .password(passwordEncoder.encode("ops123"))
+                        .roles("ACTUATOR")
+                        .build());
+    }
+
+}
@@ -1,22 +1,35 @@
 package example.cashcard;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
 import example.cashcard.model.CashCard;
+import example.cashcard.model.CashCardTransfer;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import net.minidev.json.JSONArray;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.annotation.DirtiesContext;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability
 //@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 class CashcardApplicationTests {
 
@@ -43,6 +56,58 @@ class CashcardApplicationTests {
         Assertions.assertThat(amount).isEqualTo(123.45);
     }
 
+    @Test
+    void shouldReturnACashCardAsCborWhenAskedFor() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_CBOR));
+        ResponseEntity<byte[]> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/99", HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_CBOR);
+        Assertions.assertThat(response.getHeaders().getVary()).contains(HttpHeaders.ACCEPT);
+
+        CashCard cashCard = new ObjectMapper(new CBORFactory()).readValue(response.getBody(), CashCard.class);
+        Assertions.assertThat(cashCard).isEqualTo(new CashCard(99L, 12345L, "sarah1"));
+    }
+
+    @Test
+    void shouldReturnAPageOfCashCardsAsCborWhenAskedFor() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_CBOR));
+        ResponseEntity<byte[]> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards?sort=id", HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_CBOR);
+
+        CashCard[] page = new ObjectMapper(new CBORFactory()).readValue(response.getBody(), CashCard[].class);
+        Assertions.assertThat(page).extracting(CashCard::id).startsWith(99L, 100L);
+        Assertions.assertThat(page[0].amount()).isEqualTo(12345L);
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldCreateANewCashCardFromCbor() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_CBOR);
+        byte[] body = new ObjectMapper(new CBORFactory()).writeValueAsBytes(new CashCard(null, 25000L, null));
+        ResponseEntity<Void> createResponse = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .postForEntity("/cashcards", new HttpEntity<>(body, headers), Void.class);
+
+        Assertions.assertThat(createResponse.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity(createResponse.getHeaders().getLocation(), String.class);
+        Assertions.assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        Double amount = JsonPath.parse(response.getBody()).read("$.amount");
+        Assertions.assertThat(amount).isEqualTo(250.00);
+    }
+
     @Test
     void shouldNotReturnACashCardWhenUsingBadCredentials() {
         ResponseEntity<String> response = restTemplate
@@ -69,7 +134,7 @@ class CashcardApplicationTests {
     @Test
     @DirtiesContext
     void shouldCreateANewCashCard() {
-        CashCard cashCard = new CashCard(null, 250.00, null);
+        CashCard cashCard = new CashCard(null, 25000L, null);
 
         ResponseEntity<Void> response = restTemplate
                 .withBasicAuth("sarah1", "abc123")
@@ -153,6 +218,168 @@ class CashcardApplicationTests {
         Assertions.assertThat(arrayAmounts).containsExactly(1.00, 123.45, 150.00);
     }
 
+    @Test
+    void shouldReturnCashCardsPageByPageUsingACursor() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards?cursor=&size=2", String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        DocumentContext documentContext = JsonPath.parse(response.getBody());
+        JSONArray arrayAmounts = documentContext.read("$..amount");
+        Assertions.assertThat(arrayAmounts).containsExactly(1.00, 123.45);
+
+        String cursor = response.getHeaders().getFirst("X-Next-Cursor");
+        Assertions.assertThat(cursor).isNotBlank();
+
+        response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards?size=2&cursor=" + cursor, String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        documentContext = JsonPath.parse(response.getBody());
+        arrayAmounts = documentContext.read("$..amount");
+        Assertions.assertThat(arrayAmounts).containsExactly(150.00);
+        Assertions.assertThat(response.getHeaders().containsKey("X-Next-Cursor")).isFalse();
+    }
+
+    @Test
+    void shouldRejectAMalformedCursor() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards?cursor=not-a-cursor", String.class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void shouldAnswerNotModifiedWhileTheCashCardIsUnchanged() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/99", String.class);
+        String eTag = response.getHeaders().getETag();
+        Assertions.assertThat(eTag).isEqualTo("\"0\"");
+
+        ResponseEntity<String> notModified = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/99", HttpMethod.GET, new HttpEntity<>(ifNoneMatch(eTag)), String.class);
+
+        Assertions.assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        Assertions.assertThat(notModified.getHeaders().getETag()).isEqualTo(eTag);
+        Assertions.assertThat(notModified.getBody()).isNull();
+    }
+
+    @Test
+    void shouldAnswerNotModifiedWhileAPageIsUnchanged() {
+        for (String url : List.of("/cashcards?page=0&size=2", "/cashcards?sort=amount,desc", "/cashcards?cursor=&size=2")) {
+            ResponseEntity<String> response = restTemplate
+                    .withBasicAuth("sarah1", "abc123")
+                    .getForEntity(url, String.class);
+            String eTag = response.getHeaders().getETag();
+            Assertions.assertThat(eTag).isNotNull();
+
+            ResponseEntity<String> notModified = restTemplate
+                    .withBasicAuth("sarah1", "abc123")
+                    .exchange(url, HttpMethod.GET, new HttpEntity<>(ifNoneMatch(eTag)), String.class);
+
+            Assertions.assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+            Assertions.assertThat(notModified.getBody()).isNull();
+        }
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldChangeTheETagsOnceTheCashCardChanges() {
+        ResponseEntity<String> card = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/99", String.class);
+        ResponseEntity<String> page = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards", String.class);
+
+        restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/99", HttpMethod.PUT, new HttpEntity<>(new CashCard(null, 1999L, null)), Void.class);
+
+        ResponseEntity<String> changedCard = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/99", HttpMethod.GET,
+                        new HttpEntity<>(ifNoneMatch(card.getHeaders().getETag())), String.class);
+        Assertions.assertThat(changedCard.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(changedCard.getHeaders().getETag()).isEqualTo("\"1\"");
+
+        ResponseEntity<String> changedPage = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards", HttpMethod.GET,
+                        new HttpEntity<>(ifNoneMatch(page.getHeaders().getETag())), String.class);
+        Assertions.assertThat(changedPage.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(changedPage.getHeaders().getETag()).isNotEqualTo(page.getHeaders().getETag());
+    }
+
+    @Test
+    void shouldSummarizeTheCashCardsOfTheOwner() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/summary", String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        DocumentContext documentContext = JsonPath.parse(response.getBody());
+        Number count = documentContext.read("$.count");
+        Assertions.assertThat(count).isEqualTo(3);
+        Assertions.assertThat((Double) documentContext.read("$.sum")).isEqualTo(274.45);
+        Assertions.assertThat((Double) documentContext.read("$.min")).isEqualTo(1.00);
+        Assertions.assertThat((Double) documentContext.read("$.max")).isEqualTo(150.00);
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldSummarizeBalancesBeyondTheLargestCardExactly() {
+        for (int i = 0; i < 2; i++) {
+            ResponseEntity<Void> created = restTemplate
+                    .withBasicAuth("kumar2", "xyz789")
+                    .postForEntity("/cashcards", new CashCard(null, Long.MAX_VALUE, null), Void.class);
+            Assertions.assertThat(created.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        }
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("kumar2", "xyz789")
+                .getForEntity("/cashcards/summary", String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(response.getBody()).contains("\"sum\":184467440737095716.14");
+    }
+
+    @Test
+    void shouldExportAllCashCardsOfTheOwnerAsNdjson() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/export", String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON);
+
+        String[] lines = response.getBody().split("\n");
+        Assertions.assertThat(lines).hasSize(3);
+
+        DocumentContext documentContext = JsonPath.parse(lines[0]);
+        Number id = documentContext.read("$.id");
+        Assertions.assertThat(id).isEqualTo(99);
+        Assertions.assertThat((Double) documentContext.read("$.amount")).isEqualTo(123.45);
+    }
+
+    @Test
+    void shouldExportAllCashCardsOfTheOwnerAsCsv() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/export?format=csv", String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        Assertions.assertThat(response.getBody()).isEqualTo("""
+                                                          id,amount,owner
+                                                          99,123.45,sarah1
+                                                          100,1.00,sarah1
+                                                          101,150.00,sarah1
+                                                          """);
+    }
+
     @Test
     void shouldRejectUsersWhoAreNotCardOwners() {
         ResponseEntity<String> response = restTemplate
@@ -174,7 +401,7 @@ class CashcardApplicationTests {
     @Test
     @DirtiesContext
     void shouldUpdateAnExistingCashCard() {
-        CashCard cashCard = new CashCard(null, 19.99, null);
+        CashCard cashCard = new CashCard(null, 1999L, null);
         HttpEntity<CashCard> httpEntity = new HttpEntity<>(cashCard);
 
         ResponseEntity<Void> response = restTemplate
@@ -198,9 +425,32 @@ class CashcardApplicationTests {
         Assertions.assertThat(amount).isEqualTo(19.99);
     }
 
+    @Test
+    @DirtiesContext
+    void shouldNotReturnAStaleCashCardAfterAnUpdate() {
+        ResponseEntity<String> responseGet = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/100", String.class);
+        Assertions.assertThat(responseGet.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        HttpEntity<CashCard> httpEntity = new HttpEntity<>(new CashCard(null, 4242L, null));
+        ResponseEntity<Void> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/100", HttpMethod.PUT, httpEntity, Void.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+        responseGet = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/100", String.class);
+        Assertions.assertThat(responseGet.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        Double amount = JsonPath.parse(responseGet.getBody()).read("$.amount");
+        Assertions.assertThat(amount).isEqualTo(42.42);
+    }
+
     @Test
     void shouldNotUpdateACashCardThatDoesNotExist() {
-        CashCard cashCard = new CashCard(null, 19.99, null);
+        CashCard cashCard = new CashCard(null, 1999L, null);
         HttpEntity<CashCard> httpEntity = new HttpEntity<>(cashCard);
 
         ResponseEntity<Void> response = restTemplate
@@ -212,7 +462,7 @@ class CashcardApplicationTests {
 
     @Test
     void shouldNotUpdateACashCardThatIsOwnedBySomeoneElse() {
-        CashCard kumarsCard = new CashCard(null, 333.33, null);
+        CashCard kumarsCard = new CashCard(null, 33333L, null);
         HttpEntity<CashCard> request = new HttpEntity<>(kumarsCard);
         ResponseEntity<Void> response = restTemplate
                 .withBasicAuth("sarah1", "abc123")
@@ -221,6 +471,51 @@ class CashcardApplicationTests {
         Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
 
+    @Test
+    @DirtiesContext
+    void shouldUpdateACashCardOnlyIfItIsStillAtTheExpectedVersion() {
+        HttpHeaders stale = new HttpHeaders();
+        stale.setIfMatch("\"7\"");
+        ResponseEntity<Void> rejected = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/99", HttpMethod.PUT,
+                        new HttpEntity<>(new CashCard(null, 1999L, null), stale), Void.class);
+        Assertions.assertThat(rejected.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+        HttpHeaders current = new HttpHeaders();
+        current.setIfMatch("\"0\"");
+        ResponseEntity<Void> updated = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/99", HttpMethod.PUT,
+                        new HttpEntity<>(new CashCard(null, 1999L, null), current), Void.class);
+        Assertions.assertThat(updated.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+        ResponseEntity<Void> lost = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/99", HttpMethod.PUT,
+                        new HttpEntity<>(new CashCard(null, 2999L, null), current), Void.class);
+        Assertions.assertThat(lost.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/99", String.class);
+        Assertions.assertThat(response.getHeaders().getETag()).isEqualTo("\"1\"");
+        Double amount = JsonPath.read(response.getBody(), "$.amount");
+        Assertions.assertThat(amount).isEqualTo(19.99);
+    }
+
+    @Test
+    void shouldNotUpdateACashCardOwnedBySomeoneElseWhateverTheVersion() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfMatch("\"0\"");
+        ResponseEntity<Void> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/102", HttpMethod.PUT,
+                        new HttpEntity<>(new CashCard(null, 1999L, null), headers), Void.class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
     @Test
     @DirtiesContext
     void shouldDeleteAnExistingCashCard() {
@@ -237,6 +532,133 @@ class CashcardApplicationTests {
         Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
 
+    @Test
+    @DirtiesContext
+    void shouldApplyConcurrentUpdatesAndADeleteAtomically() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<HttpStatusCode>> updates = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                HttpEntity<CashCard> httpEntity = new HttpEntity<>(new CashCard(null, i * 100L, null));
+                updates.add(executor.submit(() -> restTemplate
+                        .withBasicAuth("sarah1", "abc123")
+                        .exchange("/cashcards/101", HttpMethod.PUT, httpEntity, Void.class)
+                        .getStatusCode()));
+            }
+            Future<HttpStatusCode> delete = executor.submit(() -> restTemplate
+                    .withBasicAuth("sarah1", "abc123")
+                    .exchange("/cashcards/101", HttpMethod.DELETE, null, Void.class)
+                    .getStatusCode());
+
+            for (Future<HttpStatusCode> update : updates) {
+                Assertions.assertThat(update.get()).isIn(HttpStatus.NO_CONTENT, HttpStatus.NOT_FOUND);
+            }
+            Assertions.assertThat(delete.get()).isEqualTo(HttpStatus.NO_CONTENT);
+        } finally {
+            executor.shutdown();
+        }
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/101", String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldTransferBetweenTwoCashCardsOfTheSameOwner() {
+        ResponseEntity<Void> transferResponse = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .postForEntity("/cashcards/transfer", new CashCardTransfer(99L, 101L, 2345L), Void.class);
+
+        Assertions.assertThat(transferResponse.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+        ResponseEntity<String> from = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/99", String.class);
+        Double fromAmount = JsonPath.parse(from.getBody()).read("$.amount");
+        Assertions.assertThat(fromAmount).isEqualTo(100.00);
+
+        ResponseEntity<String> to = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/101", String.class);
+        Double toAmount = JsonPath.parse(to.getBody()).read("$.amount");
+        Assertions.assertThat(toAmount).isEqualTo(173.45);
+    }
+
+    @Test
+    void shouldNotTransferMoreThanTheCashCardHolds() {
+        ResponseEntity<Void> transferResponse = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .postForEntity("/cashcards/transfer", new CashCardTransfer(100L, 99L, 101L), Void.class);
+
+        Assertions.assertThat(transferResponse.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/100", String.class);
+        Double amount = JsonPath.parse(response.getBody()).read("$.amount");
+        Assertions.assertThat(amount).isEqualTo(1.00);
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldNotTransferPastTheLargestBalance() {
+        ResponseEntity<Void> updateResponse = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/101", HttpMethod.PUT,
+                        new HttpEntity<>(new CashCard(null, Long.MAX_VALUE - 100L, null)), Void.class);
+        Assertions.assertThat(updateResponse.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+        ResponseEntity<Void> transferResponse = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .postForEntity("/cashcards/transfer", new CashCardTransfer(99L, 101L, 101L), Void.class);
+
+        Assertions.assertThat(transferResponse.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/99", String.class);
+        Double amount = JsonPath.parse(response.getBody()).read("$.amount");
+        Assertions.assertThat(amount).isEqualTo(123.45);
+    }
+
+    @Test
+    void shouldNotTransferToOrFromACashCardOwnedBySomeoneElse() {
+        ResponseEntity<Void> toResponse = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .postForEntity("/cashcards/transfer", new CashCardTransfer(99L, 102L, 100L), Void.class);
+
+        Assertions.assertThat(toResponse.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+        ResponseEntity<Void> fromResponse = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .postForEntity("/cashcards/transfer", new CashCardTransfer(102L, 99L, 100L), Void.class);
+
+        Assertions.assertThat(fromResponse.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("kumar2", "xyz789")
+                .getForEntity("/cashcards/102", String.class);
+        Double amount = JsonPath.parse(response.getBody()).read("$.amount");
+        Assertions.assertThat(amount).isEqualTo(200.00);
+    }
+
+    @Test
+    void shouldNotTransferAnInvalidAmountOrToTheSameCashCard() {
+        ResponseEntity<Void> sameCard = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .postForEntity("/cashcards/transfer", new CashCardTransfer(99L, 99L, 100L), Void.class);
+
+        Assertions.assertThat(sameCard.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+        ResponseEntity<Void> negativeAmount = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .postForEntity("/cashcards/transfer", new CashCardTransfer(99L, 101L, -100L), Void.class);
+
+        Assertions.assertThat(negativeAmount.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
     @Test
     void shouldNotDeleteACashCardThatDoesNotExist() {
         ResponseEntity<Void> response = restTemplate
@@ -261,8 +683,200 @@ class CashcardApplicationTests {
         Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
     }
 
+    @Test
+    @DirtiesContext
+    void shouldCreateUpdateAndDeleteCashCardsInBatches() {
+        CashCard[] newCashCards = {new CashCard(null, 1000L, null), new CashCard(null, 2000L, "kumar2")};
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .postForEntity("/cashcards/batch", newCashCards, String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        DocumentContext documentContext = JsonPath.parse(response.getBody());
+        JSONArray statuses = documentContext.read("$..status");
+        Assertions.assertThat(statuses).containsExactly(201, 201);
+        Number createdId = documentContext.read("$[1].id");
+
+        ResponseEntity<String> getResponse = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/" + createdId, String.class);
+        Assertions.assertThat(getResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat((String) JsonPath.parse(getResponse.getBody()).read("$.owner")).isEqualTo("sarah1");
+
+        CashCard[] updates = {new CashCard(99L, 500L, null), new CashCard(102L, 500L, null)};
+        response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/batch", HttpMethod.PUT, new HttpEntity<>(updates), String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        statuses = JsonPath.parse(response.getBody()).read("$..status");
+        Assertions.assertThat(statuses).containsExactly(204, 404);
+
+        getResponse = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/99", String.class);
+        Assertions.assertThat((Double) JsonPath.parse(getResponse.getBody()).read("$.amount")).isEqualTo(5.00);
+
+        Long[] ids = {createdId.longValue(), 102L};
+        response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/batch", HttpMethod.DELETE, new HttpEntity<>(ids), String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        statuses = JsonPath.parse(response.getBody()).read("$..status");
+        Assertions.assertThat(statuses).containsExactly(204, 404);
+
+        getResponse = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/" + createdId, String.class);
+        Assertions.assertThat(getResponse.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void shouldRejectACashCardWithoutAnAmount() {
+        for (String body : new String[]{"{}", "{\"amount\": null}"}) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+
+            ResponseEntity<Void> createResponse = restTemplate
+                    .withBasicAuth("sarah1", "abc123")
+                    .postForEntity("/cashcards", new HttpEntity<>(body, headers), Void.class);
+            Assertions.assertThat(createResponse.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+            ResponseEntity<Void> updateResponse = restTemplate
+                    .withBasicAuth("sarah1", "abc123")
+                    .exchange("/cashcards/99", HttpMethod.PUT, new HttpEntity<>(body, headers), Void.class);
+            Assertions.assertThat(updateResponse.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        }
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/99", String.class);
+        Assertions.assertThat((Double) JsonPath.parse(response.getBody()).read("$.amount")).isEqualTo(123.45);
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldRejectOnlyTheBatchItemsWithoutAnAmount() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .postForEntity("/cashcards/batch",
+                        new HttpEntity<>("[{\"amount\": 10.00}, {}, {\"amount\": null}]", headers), String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        JSONArray statuses = JsonPath.parse(response.getBody()).read("$..status");
+        Assertions.assertThat(statuses).containsExactly(201, 400, 400);
+
+        response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/batch", HttpMethod.PUT, new HttpEntity<>(
+                        "[{\"id\": 99}, {\"id\": 100, \"amount\": null}, {\"id\": 101, \"amount\": 1.00}]",
+                        headers), String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        statuses = JsonPath.parse(response.getBody()).read("$..status");
+        Assertions.assertThat(statuses).containsExactly(400, 400, 204);
+
+        response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/99", String.class);
+        Assertions.assertThat((Double) JsonPath.parse(response.getBody()).read("$.amount")).isEqualTo(123.45);
+        response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/100", String.class);
+        Assertions.assertThat((Double) JsonPath.parse(response.getBody()).read("$.amount")).isEqualTo(1.00);
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldCreateCashCardsFromAnNdjsonStream() {
+        String body = """
+                      {"amount": 1.50}
+                      {"amount": 2.50}
+                      {"id": 99, "amount": 3.50}
+                      """;
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_NDJSON);
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/batch", HttpMethod.POST, new HttpEntity<>(body, headers), String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        JSONArray statuses = JsonPath.parse(response.getBody()).read("$..status");
+        Assertions.assertThat(statuses).containsExactly(201, 201, 201);
+
+        JSONArray ids = JsonPath.parse(response.getBody()).read("$..id");
+        Assertions.assertThat(ids).doesNotContain(99);
+    }
+
+    @Test
+    void shouldExposeRequestAndOwnershipMetricsForScraping() {
+        restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/102", String.class);
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("ops1", "ops123")
+                .getForEntity("/actuator/prometheus", String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(response.getBody())
+                .contains("http_server_requests_seconds_bucket")
+                .contains("spring_data_repository_invocations_seconds_bucket")
+                .contains("cashcard_ownership_rejected_total{operation=\"find\"")
+                .contains("hikaricp_connections_active")
+                .contains("cache_gets_total{cache=\"cashCards\"")
+                .contains("cache_gets_total{cache=\"credentials\"");
+    }
+
+    @Test
+    void shouldLetOperatorsReadTheCacheMetersThroughTheMetricsEndpoint() {
+        restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/99", String.class);
+
+        for (String cache : List.of("cashCards", "credentials")) {
+            ResponseEntity<String> response = restTemplate
+                    .withBasicAuth("ops1", "ops123")
+                    .getForEntity("/actuator/metrics/cache.gets?tag=cache:{cache}", String.class, cache);
+            Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+            DocumentContext documentContext = JsonPath.parse(response.getBody());
+            Assertions.assertThat(documentContext.read("$.name", String.class)).isEqualTo("cache.gets");
+            Double gets = documentContext.read("$.measurements[0].value");
+            Assertions.assertThat(gets).isPositive();
+        }
+    }
+
+    @Test
+    void shouldNotLetCardOwnersOrAnonymousCallersScrapeTheMetrics() {
+        ResponseEntity<String> owner = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/actuator/prometheus", String.class);
+        Assertions.assertThat(owner.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+
+        ResponseEntity<String> anonymous = restTemplate.getForEntity("/actuator/prometheus", String.class);
+        Assertions.assertThat(anonymous.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void shouldNotLetCardOwnersOrAnonymousCallersReadTheMetricsEndpoint() {
+        ResponseEntity<String> owner = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/actuator/metrics/cache.gets", String.class);
+        Assertions.assertThat(owner.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+
+        ResponseEntity<String> anonymous = restTemplate.getForEntity("/actuator/metrics/cache.gets", String.class);
+        Assertions.assertThat(anonymous.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
     @Test
     void contextLoads() {
     }
 
+    private static HttpHeaders ifNoneMatch(String eTag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        return headers;
+    }
+
 }
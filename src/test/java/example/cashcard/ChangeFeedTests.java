@@ -0,0 +1,192 @@
+package example.cashcard;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import example.cashcard.model.CashCard;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ChangeFeedTests {
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @LocalServerPort
+    int port;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+
+    @Test
+    @DirtiesContext
+    void shouldStreamTheChangesOfTheOwnerAsTheyAreMade() throws Exception {
+        try (EventStream changes = subscribe("sarah1", "abc123", null)) {
+            Assertions.assertThat(changes.next().name()).isEqualTo("subscribed");
+
+            update("kumar2", "xyz789", 102, 777L);
+            update("sarah1", "abc123", 99, 1999L);
+            ServerSentEvent updated = changes.next();
+            Assertions.assertThat(updated.name()).isEqualTo("updated");
+            DocumentContext context = JsonPath.parse(updated.data());
+            Assertions.assertThat((Number) context.read("$.id")).isEqualTo(99);
+            Assertions.assertThat((Double) context.read("$.amount")).isEqualTo(19.99);
+
+            ResponseEntity<Void> created = restTemplate
+                    .withBasicAuth("sarah1", "abc123")
+                    .postForEntity("/cashcards", new CashCard(null, 25000L, null), Void.class);
+            ServerSentEvent createdEvent = changes.next();
+            Assertions.assertThat(createdEvent.name()).isEqualTo("created");
+            Assertions.assertThat(created.getHeaders().getLocation().getPath())
+                    .isEqualTo("/cashcards/" + JsonPath.parse(createdEvent.data()).read("$.id"));
+            Assertions.assertThat((Double) JsonPath.parse(createdEvent.data()).read("$.amount")).isEqualTo(250.00);
+
+            restTemplate.withBasicAuth("sarah1", "abc123")
+                    .exchange("/cashcards/100", HttpMethod.DELETE, null, Void.class);
+            ServerSentEvent deleted = changes.next();
+            Assertions.assertThat(deleted.name()).isEqualTo("deleted");
+            Assertions.assertThat(deleted.data()).isEqualTo("{\"id\":100}");
+
+            Assertions.assertThat(Long.parseLong(updated.id())).isLessThan(Long.parseLong(createdEvent.id()));
+            Assertions.assertThat(Long.parseLong(createdEvent.id())).isLessThan(Long.parseLong(deleted.id()));
+        }
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldSendOnlyTheMissedChangesToAClientThatResumes() throws Exception {
+        String lastEventId;
+        try (EventStream changes = subscribe("sarah1", "abc123", null)) {
+            lastEventId = changes.next().id();
+        }
+
+        update("sarah1", "abc123", 99, 1000L);
+        update("sarah1", "abc123", 101, 2000L);
+
+        try (EventStream changes = subscribe("sarah1", "abc123", lastEventId)) {
+            ServerSentEvent first = changes.next();
+            Assertions.assertThat(first.name()).isEqualTo("updated");
+            Assertions.assertThat((Number) JsonPath.parse(first.data()).read("$.id")).isEqualTo(99);
+            ServerSentEvent second = changes.next();
+            Assertions.assertThat(second.name()).isEqualTo("updated");
+            Assertions.assertThat((Number) JsonPath.parse(second.data()).read("$.id")).isEqualTo(101);
+
+            lastEventId = first.id();
+        }
+
+        try (EventStream changes = subscribe("sarah1", "abc123", lastEventId)) {
+            Assertions.assertThat((Number) JsonPath.parse(changes.next().data()).read("$.id")).isEqualTo(101);
+        }
+    }
+
+    @Test
+    void shouldAskAClientToStartOverWhenItsLastEventIdIsUnknown() throws Exception {
+        try (EventStream changes = subscribe("sarah1", "abc123", "1")) {
+            Assertions.assertThat(changes.next().name()).isEqualTo("reset");
+        }
+    }
+
+    @Test
+    void shouldRejectSubscribersWhoAreNotCardOwners() throws Exception {
+        HttpResponse<Void> response = client.send(changesRequest("hank-owns-no-cards", "qrs456", null),
+                HttpResponse.BodyHandlers.discarding());
+
+        Assertions.assertThat(response.statusCode()).isEqualTo(HttpStatus.FORBIDDEN.value());
+    }
+
+    private void update(String username, String password, long id, long amount) {
+        ResponseEntity<Void> response = restTemplate
+                .withBasicAuth(username, password)
+                .exchange("/cashcards/" + id, HttpMethod.PUT, new HttpEntity<>(new CashCard(null, amount, null)),
+                        Void.class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+    }
+
+    private EventStream subscribe(String username, String password, String lastEventId) throws Exception {
+        HttpResponse<Stream<String>> response = client.send(changesRequest(username, password, lastEventId),
+                HttpResponse.BodyHandlers.ofLines());
+
+        Assertions.assertThat(response.statusCode()).isEqualTo(HttpStatus.OK.value());
+        Assertions.assertThat(response.headers().firstValue(HttpHeaders.CONTENT_TYPE).orElseThrow())
+                .startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+        return new EventStream(response.body());
+    }
+
+    private HttpRequest changesRequest(String username, String password, String lastEventId) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/cashcards/changes"))
+                .timeout(Duration.ofSeconds(10))
+                .header(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE)
+                .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder()
+                        .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8)));
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        return request.build();
+    }
+
+    private record ServerSentEvent(String id, String name, String data) {
+
+    }
+
+    private record EventStream(Stream<String> lines, Iterator<String> iterator) implements AutoCloseable {
+
+        private EventStream(Stream<String> lines) {
+            this(lines, lines.iterator());
+        }
+
+        /**
+         * The next event, skipping heartbeat comments.
+         */
+        private ServerSentEvent next() throws Exception {
+            return CompletableFuture.supplyAsync(() -> {
+                String id = null;
+                String name = null;
+                String data = null;
+                while (iterator.hasNext()) {
+                    String line = iterator.next();
+                    if (line.isEmpty() && name != null) {
+                        return new ServerSentEvent(id, name, data);
+                    } else if (line.startsWith("id:")) {
+                        id = line.substring(3);
+                    } else if (line.startsWith("event:")) {
+                        name = line.substring(6);
+                    } else if (line.startsWith("data:")) {
+                        data = line.substring(5);
+                    }
+                }
+                throw new AssertionError("stream ended");
+            }).get(10, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void close() {
+            lines.close();
+        }
+
+    }
+
+}
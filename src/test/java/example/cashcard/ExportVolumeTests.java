@@ -0,0 +1,78 @@
+package example.cashcard;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+@Tag("small-heap")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ExportVolumeTests {
+
+    private static final int SEED_CHUNK = 100_000;
+
+    @TempDir
+    static Path databaseDirectory;
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Value("${cashcard.export.cards:1000000}")
+    int cards;
+
+    // On disk, so that the cards take no heap and the heap limit bounds the export alone.
+    @DynamicPropertySource
+    static void fileDatabase(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url",
+                () -> "jdbc:h2:file:" + databaseDirectory.resolve("cashcard") + ";CACHE_SIZE=8192");
+    }
+
+    @BeforeEach
+    void seedCards() {
+        for (int seeded = 0; seeded < cards; seeded += SEED_CHUNK) {
+            jdbcTemplate.update("""
+                                INSERT INTO cash_card (amount, owner)
+                                SELECT MOD(X * 7919, 1000000), 'sarah1' FROM SYSTEM_RANGE(1, ?)
+                                """, Math.min(SEED_CHUNK, cards - seeded));
+        }
+    }
+
+    @Test
+    void shouldStreamMillionsOfCardsWithinASmallHeap() {
+        long expected = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cash_card WHERE owner = 'sarah1'",
+                Long.class);
+
+        long start = System.nanoTime();
+        long exported = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .execute("/cashcards/export?format=csv", HttpMethod.GET, null, response -> {
+                    Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                    try (BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                        return reader.lines().skip(1).count();
+                    }
+                });
+        System.out.printf("%d cards exported in %.1f s with a max heap of %d MB%n", exported,
+                (System.nanoTime() - start) / 1e9, Runtime.getRuntime().maxMemory() >> 20);
+
+        Assertions.assertThat(exported).isEqualTo(expected);
+    }
+
+}
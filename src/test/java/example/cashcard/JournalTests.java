@@ -0,0 +1,234 @@
+package example.cashcard;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import example.cashcard.journal.CashCardJournal;
+import example.cashcard.journal.CashCardWriteBehind;
+import example.cashcard.journal.JournalRecord;
+import example.cashcard.model.CashCard;
+import example.cashcard.model.CashCardTransfer;
+import example.cashcard.repository.CashCardJdbcRepository;
+import example.cashcard.repository.CashCardRepository;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "cashcard.journal.enabled=true",
+    "cashcard.journal.file=${java.io.tmpdir}/cashcard-journal-tests-${random.uuid}.journal",
+    "cashcard.journal.size=1MB"})
+class JournalTests {
+
+    private static final int JOURNAL_SIZE = 64 * 1024;
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    CashCardRepository cashCardRepository;
+
+    @Autowired
+    CashCardJdbcRepository cashCardJdbcRepository;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadAJournaledUpdateAndApplyItInTheBackground() {
+        ResponseEntity<Void> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/99", HttpMethod.PUT, new HttpEntity<>(new CashCard(null, 4242L, null)),
+                        Void.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+        ResponseEntity<String> getResponse = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/99", String.class);
+        Assertions.assertThat(getResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        DocumentContext documentContext = JsonPath.parse(getResponse.getBody());
+        Assertions.assertThat((Double) documentContext.read("$.amount")).isEqualTo(42.42);
+
+        awaitTrue(() -> amountOf(99) == 4242L);
+    }
+
+    @Test
+    void shouldHideAJournaledDeleteAndApplyItInTheBackground() {
+        ResponseEntity<Void> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/100", HttpMethod.DELETE, null, Void.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+        ResponseEntity<String> getResponse = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/100", String.class);
+        Assertions.assertThat(getResponse.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+        ResponseEntity<Void> updateResponse = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/100", HttpMethod.PUT, new HttpEntity<>(new CashCard(null, 1L, null)),
+                        Void.class);
+        Assertions.assertThat(updateResponse.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+        awaitTrue(() -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cash_card WHERE id = 100",
+                Integer.class) == 0);
+    }
+
+    @Test
+    void shouldNotJournalChangesToCardsOfOtherOwners() {
+        ResponseEntity<Void> response = restTemplate
+                .withBasicAuth("kumar2", "xyz789")
+                .exchange("/cashcards/101", HttpMethod.PUT, new HttpEntity<>(new CashCard(null, 1L, null)),
+                        Void.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+        response = restTemplate
+                .withBasicAuth("kumar2", "xyz789")
+                .exchange("/cashcards/101", HttpMethod.DELETE, null, Void.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void shouldJournalAnUpdateOnlyIfTheCardIsStillAtTheExpectedVersion() {
+        String eTag = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/101", String.class)
+                .getHeaders().getETag();
+        long version = Long.parseLong(eTag.replace("\"", ""));
+
+        HttpHeaders stale = new HttpHeaders();
+        stale.setIfMatch("\"" + (version + 10) + "\"");
+        ResponseEntity<Void> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/101", HttpMethod.PUT, new HttpEntity<>(new CashCard(null, 1L, null), stale),
+                        Void.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+        HttpHeaders current = new HttpHeaders();
+        current.setIfMatch(eTag);
+        response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/101", HttpMethod.PUT, new HttpEntity<>(new CashCard(null, 2L, null), current),
+                        Void.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+        Assertions.assertThat(restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/101", String.class)
+                .getHeaders().getETag()).isEqualTo("\"" + (version + 1) + "\"");
+        awaitTrue(() -> jdbcTemplate.queryForObject("SELECT version FROM cash_card WHERE id = 101",
+                Long.class) == version + 1);
+    }
+
+    @Test
+    void shouldTransferOnlyAfterTheJournaledUpdatesOfBothCardsAreApplied() {
+        jdbcTemplate.update("INSERT INTO cash_card(id, amount, owner) VALUES (200, 0, 'sarah1'), (201, 0, 'sarah1')");
+
+        ResponseEntity<Void> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .exchange("/cashcards/200", HttpMethod.PUT, new HttpEntity<>(new CashCard(null, 5000L, null)),
+                        Void.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+        response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .postForEntity("/cashcards/transfer", new CashCardTransfer(200L, 201L, 1500L), Void.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+        Assertions.assertThat(amountOf(200)).isEqualTo(3500L);
+        Assertions.assertThat(amountOf(201)).isEqualTo(1500L);
+        DocumentContext documentContext = JsonPath.parse(restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/200", String.class)
+                .getBody());
+        Assertions.assertThat((Double) documentContext.read("$.amount")).isEqualTo(35.00);
+    }
+
+    @Test
+    void shouldReplayTheJournalLeftByACrashedInstanceOnStartup() throws Exception {
+        Path file = directory.resolve("crashed.journal");
+        try (CashCardJournal crashed = new CashCardJournal(file, JOURNAL_SIZE)) {
+            crashed.append(JournalRecord.Type.UPDATE, 102, "kumar2", 1234);
+            JournalRecord last = crashed.append(JournalRecord.Type.UPDATE, 102, "kumar2", 5678);
+            crashed.awaitDurable(last.sequence());
+        }
+
+        try (CashCardJournal journal = new CashCardJournal(file, JOURNAL_SIZE);
+                CashCardWriteBehind writeBehind = new CashCardWriteBehind(journal, cashCardRepository,
+                        cashCardJdbcRepository, null, 500, Duration.ofSeconds(5))) {
+            Assertions.assertThat(amountOf(102)).isEqualTo(5678L);
+            Assertions.assertThat(writeBehind.findById(102L)).contains(new CashCard(102L, 5678L, "kumar2", 2L));
+            Assertions.assertThat(journal.getAppliedSequence()).isEqualTo(2);
+        }
+
+        try (CashCardJournal journal = new CashCardJournal(file, JOURNAL_SIZE)) {
+            Assertions.assertThat(journal.takeUnapplied(10, 0, TimeUnit.MILLISECONDS))
+                    .isEqualTo(List.of());
+        }
+    }
+
+    @Test
+    void shouldGiveUpWaitingForTheApplierAfterTheApplyTimeout() throws Exception {
+        jdbcTemplate.update("INSERT INTO cash_card(id, amount, owner) VALUES (300, 0, 'sarah1')");
+
+        try (CashCardJournal journal = new CashCardJournal(directory.resolve("stalled.journal"), JOURNAL_SIZE);
+                CashCardWriteBehind writeBehind = new CashCardWriteBehind(journal, cashCardRepository,
+                        cashCardJdbcRepository, null, 500, Duration.ofMillis(300))) {
+            try (Connection connection = dataSource.getConnection()) {
+                // Holding the row lock stalls the applier, as a failing database would
+                connection.setAutoCommit(false);
+                connection.createStatement().execute("SELECT * FROM cash_card WHERE id = 300 FOR UPDATE");
+
+                writeBehind.updateAll(List.of(new CashCard(300L, 100L, "sarah1")));
+                Assertions.assertThatExceptionOfType(TimeoutException.class)
+                        .isThrownBy(() -> writeBehind.whenApplied(List.of(300L), () -> {
+                            throw new AssertionError("ran before the update was applied");
+                        }));
+
+                connection.rollback();
+            }
+
+            Assertions.assertThat(writeBehind.whenApplied(List.of(300L), () -> amountOf(300))).isEqualTo(100L);
+        }
+    }
+
+    private long amountOf(long id) {
+        return jdbcTemplate.queryForObject("SELECT amount FROM cash_card WHERE id = ?", Long.class, id);
+    }
+
+    private static void awaitTrue(Supplier<Boolean> condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.get()) {
+            Assertions.assertThat(System.currentTimeMillis()).as("applied within 5s").isLessThan(deadline);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+}
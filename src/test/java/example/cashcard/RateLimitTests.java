@@ -0,0 +1,52 @@
+package example.cashcard;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "cashcard.rate-limit.requests-per-second=0.1",
+    "cashcard.rate-limit.burst=2"})
+class RateLimitTests {
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Test
+    void shouldAnswerTooManyRequestsOnceAnOwnerHasUsedUpItsBurst() {
+        for (int i = 0; i < 2; i++) {
+            ResponseEntity<String> response = restTemplate
+                    .withBasicAuth("sarah1", "abc123")
+                    .getForEntity("/cashcards/99", String.class);
+            Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        }
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/99", String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        Assertions.assertThat(Long.parseLong(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)))
+                .isBetween(1L, 10L);
+
+        ResponseEntity<String> otherOwner = restTemplate
+                .withBasicAuth("kumar2", "xyz789")
+                .getForEntity("/cashcards/102", String.class);
+        Assertions.assertThat(otherOwner.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void shouldNotCountRequestsThatFailAuthentication() {
+        for (int i = 0; i < 5; i++) {
+            ResponseEntity<String> response = restTemplate
+                    .withBasicAuth("hank-owns-no-cards", "BAD-CREDENTIALS")
+                    .getForEntity("/cashcards/99", String.class);
+            Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        }
+    }
+
+}
@@ -0,0 +1,177 @@
+package example.cashcard;
+
+import com.jayway.jsonpath.JsonPath;
+import example.cashcard.model.CashCard;
+import example.cashcard.repository.UserJdbcRepository;
+import example.cashcard.sharding.OwnerShardedDataSource;
+import example.cashcard.sharding.ShardContext;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import net.minidev.json.JSONArray;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "cashcard.sharding.shard-count=3")
+class ShardingTests {
+
+    private static final int SHARDS = 3;
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Autowired
+    OwnerShardedDataSource dataSource;
+
+    @Autowired
+    UserJdbcRepository userJdbcRepository;
+
+    @Autowired
+    PasswordEncoder passwordEncoder;
+
+    @Test
+    void shouldPlaceTheTestOwnersOnDifferentShards() {
+        Assertions.assertThat(dataSource.getShards()).hasSize(SHARDS);
+        Assertions.assertThat(dataSource.shardOf("sarah1")).isNotEqualTo(dataSource.shardOf("kumar2"));
+    }
+
+    @Test
+    void shouldStoreANewCashCardOnlyOnTheShardOfItsOwner() {
+        long sarahsCard = create("sarah1", "abc123", 1000L);
+        long kumarsCard = create("kumar2", "xyz789", 2000L);
+
+        assertStoredOnlyOn(dataSource.shardOf("sarah1"), sarahsCard);
+        assertStoredOnlyOn(dataSource.shardOf("kumar2"), kumarsCard);
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("kumar2", "xyz789")
+                .getForEntity("/cashcards/" + kumarsCard, String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/" + kumarsCard, String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void shouldNotHideACardFromItsOwnerAfterAnotherOwnerLookedItUp() {
+        long kumarsCard = create("kumar2", "xyz789", 2000L);
+        ResponseEntity<Void> update = restTemplate
+                .withBasicAuth("kumar2", "xyz789")
+                .exchange("/cashcards/" + kumarsCard, HttpMethod.PUT,
+                        new HttpEntity<>(new CashCard(null, 2500L, null)), Void.class);
+        Assertions.assertThat(update.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/" + kumarsCard, String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+        response = restTemplate
+                .withBasicAuth("kumar2", "xyz789")
+                .getForEntity("/cashcards/" + kumarsCard, String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Double amount = JsonPath.parse(response.getBody()).read("$.amount");
+        Assertions.assertThat(amount).isEqualTo(25.00);
+
+        ResponseEntity<Void> delete = restTemplate
+                .withBasicAuth("kumar2", "xyz789")
+                .exchange("/cashcards/" + kumarsCard, HttpMethod.DELETE, null, Void.class);
+        Assertions.assertThat(delete.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+    }
+
+    @Test
+    void shouldKeepIdsUniqueAcrossShards() {
+        CashCard[] newCashCards = {new CashCard(null, 100L, null), new CashCard(null, 200L, null),
+            new CashCard(null, 300L, null)};
+
+        List<Number> ids = new ArrayList<>();
+        for (String[] user : new String[][]{{"sarah1", "abc123"}, {"kumar2", "xyz789"}}) {
+            ResponseEntity<String> response = restTemplate
+                    .withBasicAuth(user[0], user[1])
+                    .postForEntity("/cashcards/batch", newCashCards, String.class);
+            Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+            JSONArray created = JsonPath.parse(response.getBody()).read("$..id");
+            for (Object id : created) {
+                Assertions.assertThat(((Number) id).longValue() % SHARDS).isEqualTo(dataSource.shardOf(user[0]));
+                ids.add((Number) id);
+            }
+        }
+
+        Assertions.assertThat(ids).hasSize(6).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void shouldKeepUsersOnlyOnTheFirstShardWhateverShardARequestIsRoutedTo() {
+        int otherShard = Math.max(dataSource.shardOf("sarah1"), dataSource.shardOf("kumar2"));
+        ShardContext.set(otherShard);
+        try {
+            userJdbcRepository.importAll(List.of(User.withUsername("maria3")
+                    .password(passwordEncoder.encode("def456"))
+                    .roles("CARD-OWNER")
+                    .build()));
+        } finally {
+            ShardContext.clear();
+        }
+
+        Assertions.assertThat(new JdbcTemplate(dataSource.getShards().get(0))
+                .queryForObject("SELECT COUNT(*) FROM users WHERE username = 'maria3'", Integer.class)).isEqualTo(1);
+        for (int i = 1; i < SHARDS; i++) {
+            Integer userTables = new JdbcTemplate(dataSource.getShards().get(i)).queryForObject("""
+                    SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES
+                    WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_NAME IN ('USERS', 'AUTHORITIES')
+                    """, Integer.class);
+            Assertions.assertThat(userTables).as("user tables on shard %d", i).isZero();
+        }
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("maria3", "def456")
+                .getForEntity("/cashcards/summary", String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void shouldExportFromTheShardOfTheOwner() {
+        long id = create("sarah1", "abc123", 4200L);
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/export?format=csv", String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(response.getBody()).contains(id + ",42.00,sarah1");
+    }
+
+    private long create(String username, String password, long amount) {
+        ResponseEntity<Void> response = restTemplate
+                .withBasicAuth(username, password)
+                .postForEntity("/cashcards", new CashCard(null, amount, null), Void.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+
+        URI location = response.getHeaders().getLocation();
+        String path = location.getPath();
+        return Long.parseLong(path.substring(path.lastIndexOf('/') + 1));
+    }
+
+    private void assertStoredOnlyOn(int shard, long id) {
+        for (int i = 0; i < SHARDS; i++) {
+            Integer count = new JdbcTemplate(dataSource.getShards().get(i))
+                    .queryForObject("SELECT COUNT(*) FROM cash_card WHERE id = ?", Integer.class, id);
+            Assertions.assertThat(count).as("cards with id %d on shard %d", id, i).isEqualTo(i == shard ? 1 : 0);
+        }
+        Assertions.assertThat(id % SHARDS).isEqualTo(shard);
+    }
+
+}
@@ -0,0 +1,97 @@
+package example.cashcard;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "cashcard.security.token.enabled=true")
+class TokenAuthenticationTests {
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Test
+    void shouldReturnACashCardWhenUsingAnIssuedToken() {
+        String token = issueToken("sarah1", "abc123");
+
+        ResponseEntity<String> response = getWithToken("/cashcards/99", token);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        DocumentContext context = JsonPath.parse(response.getBody());
+        Number id = context.read("$.id");
+        Assertions.assertThat(id).isEqualTo(99);
+    }
+
+    @Test
+    void shouldScopeTokenRequestsToTheTokenOwner() {
+        String token = issueToken("sarah1", "abc123");
+
+        ResponseEntity<String> response = getWithToken("/cashcards/102", token);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void shouldRejectTokensOfUsersWhoAreNotCardOwners() {
+        String token = issueToken("hank-owns-no-cards", "qrs456");
+
+        ResponseEntity<String> response = getWithToken("/cashcards/99", token);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+    @Test
+    void shouldRejectTamperedTokens() {
+        String token = issueToken("sarah1", "abc123");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        ResponseEntity<String> response = getWithToken("/cashcards/99", tampered);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void shouldNotIssueATokenForBadCredentials() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "BAD-CREDENTIALS")
+                .postForEntity("/auth/token", null, String.class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void shouldStillAcceptBasicCredentials() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("sarah1", "abc123")
+                .getForEntity("/cashcards/99", String.class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    private String issueToken(String username, String password) {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth(username, password)
+                .postForEntity("/auth/token", null, String.class);
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        DocumentContext context = JsonPath.parse(response.getBody());
+        Assertions.assertThat((String) context.read("$.token_type")).isEqualTo("Bearer");
+
+        return context.read("$.access_token");
+    }
+
+    private ResponseEntity<String> getWithToken(String uri, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+
+        return restTemplate.exchange(uri, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+
+}
@@ -0,0 +1,73 @@
+package example.cashcard;
+
+import example.cashcard.repository.UserJdbcRepository;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.annotation.DirtiesContext;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class UserStoreTests {
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Autowired
+    UserJdbcRepository userJdbcRepository;
+
+    @Autowired
+    PasswordEncoder passwordEncoder;
+
+    @Test
+    @DirtiesContext
+    void shouldAuthenticateImportedUsers() {
+        userJdbcRepository.importAll(List.of(
+                owner("maria3", "def456"),
+                User.withUsername("li4").password(passwordEncoder.encode("ghi789")).roles("NON-OWNER").build()));
+
+        Assertions.assertThat(getSummary("maria3", "def456").getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(getSummary("li4", "ghi789").getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldStopAcceptingAReplacedPasswordAtOnce() {
+        Assertions.assertThat(getSummary("sarah1", "abc123").getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        userJdbcRepository.importAll(List.of(owner("sarah1", "new-secret")));
+
+        Assertions.assertThat(getSummary("sarah1", "abc123").getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        Assertions.assertThat(getSummary("sarah1", "new-secret").getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldRejectADisabledUser() {
+        userJdbcRepository.importAll(List.of(User.withUsername("kumar2")
+                .password(passwordEncoder.encode("xyz789"))
+                .roles("CARD-OWNER")
+                .disabled(true)
+                .build()));
+
+        Assertions.assertThat(getSummary("kumar2", "xyz789").getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    private User owner(String username, String password) {
+        return (User) User.withUsername(username)
+                .password(passwordEncoder.encode(password))
+                .roles("CARD-OWNER")
+                .build();
+    }
+
+    private ResponseEntity<String> getSummary(String username, String password) {
+        return restTemplate.withBasicAuth(username, password).getForEntity("/cashcards/summary", String.class);
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.changes;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import example.cashcard.model.CashCardChange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+public class CashCardChangeFeedTest {
+
+    private final Counter dropped = new SimpleMeterRegistry().counter("dropped");
+
+    private final CashCardChangeFeed changeFeed = new CashCardChangeFeed(new ObjectMapper(), 4, 8,
+            Duration.ofMinutes(1), Duration.ofMinutes(1), Duration.ofMinutes(1), Duration.ofMinutes(1), 2, dropped);
+
+    @AfterEach
+    void closeChangeFeed() {
+        changeFeed.close();
+    }
+
+    @Test
+    void shouldDropASubscriberThatFallsBehindWithoutSlowingDownPublishers() throws Exception {
+        SseEmitter stuck = changeFeed.subscribe("sarah1", null);
+        changeFeed.subscribe("sarah1", null);
+
+        // Holding the emitter's lock blocks every write to it, as a client
+        // that stopped reading would once its socket buffer is full.
+        synchronized (stuck) {
+            CompletableFuture.runAsync(() -> {
+                for (long id = 0; id < 50; id++) {
+                    changeFeed.publish("sarah1", CashCardChange.updated(id, 100));
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                }
+            }).get(5, TimeUnit.SECONDS);
+
+            Assertions.assertThat(dropped.count()).isEqualTo(1);
+            Assertions.assertThat(changeFeed.getSubscribers()).isEqualTo(1);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!isCompleted(stuck) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertThat(isCompleted(stuck)).isTrue();
+    }
+
+    @Test
+    void shouldDropASubscriberWhoseWriteStallsWithoutHoldingUpTheOthers() throws Exception {
+        CountDownLatch unblock = new CountDownLatch(1);
+        BlockingQueue<SseEmitter.SseEventBuilder> received = new LinkedBlockingQueue<>();
+        Counter stalledDropped = new SimpleMeterRegistry().counter("dropped");
+        // A single delivery thread, which the stalled write holds
+        try (CashCardChangeFeed stallingFeed = new CashCardChangeFeed(new ObjectMapper(), 4, 8,
+                Duration.ofMinutes(1), Duration.ofMinutes(1), Duration.ofMinutes(1), Duration.ofMillis(100), 1,
+                stalledDropped) {
+            private boolean first = true;
+
+            @Override
+            SseEmitter newEmitter(long timeoutMillis) {
+                boolean stalls = first;
+                first = false;
+                return new SseEmitter(timeoutMillis) {
+                    @Override
+                    public void send(SseEmitter.SseEventBuilder builder) throws IOException {
+                        if (!stalls) {
+                            received.add(builder);
+                            return;
+                        }
+                        try {
+                            unblock.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        throw new IOException("Broken pipe");
+                    }
+                };
+            }
+        }) {
+            stallingFeed.subscribe("sarah1", null);
+            Thread.sleep(50);
+            stallingFeed.subscribe("kumar2", null);
+            stallingFeed.publish("kumar2", CashCardChange.updated(102L, 100L));
+
+            Assertions.assertThat(received.poll(5, TimeUnit.SECONDS)).isNotNull();
+            Assertions.assertThat(received.poll(5, TimeUnit.SECONDS)).isNotNull();
+            Assertions.assertThat(stalledDropped.count()).isEqualTo(1);
+            Assertions.assertThat(stallingFeed.getSubscribers()).isEqualTo(1);
+        } finally {
+            unblock.countDown();
+        }
+    }
+
+    @Test
+    void shouldHoldOffAWriterOfTheSameCardUntilTheGuardIsClosed() throws Exception {
+        CompletableFuture<Void> sameCard;
+        try (CashCardChangeFeed.Guard guard = changeFeed.guard(List.of(99L, 100L))) {
+            sameCard = CompletableFuture.runAsync(() -> changeFeed.guard(List.of(100L)).close());
+            CompletableFuture.runAsync(() -> changeFeed.guard(List.of(101L)).close()).get(5, TimeUnit.SECONDS);
+
+            Thread.sleep(100);
+            Assertions.assertThat(sameCard).isNotDone();
+        }
+
+        sameCard.get(5, TimeUnit.SECONDS);
+    }
+
+    private static boolean isCompleted(SseEmitter emitter) {
+        try {
+            emitter.send(SseEmitter.event().comment(""));
+            return false;
+        } catch (IllegalStateException e) {
+            return true;
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+}
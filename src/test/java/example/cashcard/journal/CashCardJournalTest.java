@@ -0,0 +1,133 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+public class CashCardJournalTest {
+
+    private static final int SIZE = 64 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReplayDurableRecordsInOrderAfterARestart() throws Exception {
+        Path file = directory.resolve("cashcard.journal");
+        try (CashCardJournal journal = new CashCardJournal(file, SIZE)) {
+            journal.append(JournalRecord.Type.UPDATE, 99, "sarah1", 1000);
+            journal.append(JournalRecord.Type.UPDATE, 99, "sarah1", 2000);
+            JournalRecord last = journal.append(JournalRecord.Type.DELETE, 100, "sarah1", 0);
+            journal.awaitDurable(last.sequence());
+        }
+
+        try (CashCardJournal journal = new CashCardJournal(file, SIZE)) {
+            Assertions.assertThat(takeAll(journal)).containsExactly(
+                    new JournalRecord(1, JournalRecord.Type.UPDATE, 99, "sarah1", 1000),
+                    new JournalRecord(2, JournalRecord.Type.UPDATE, 99, "sarah1", 2000),
+                    new JournalRecord(3, JournalRecord.Type.DELETE, 100, "sarah1", 0));
+        }
+    }
+
+    @Test
+    void shouldNotReplayRecordsMarkedAsApplied() throws Exception {
+        Path file = directory.resolve("cashcard.journal");
+        try (CashCardJournal journal = new CashCardJournal(file, SIZE)) {
+            journal.append(JournalRecord.Type.UPDATE, 99, "sarah1", 1000);
+            journal.append(JournalRecord.Type.UPDATE, 101, "sarah1", 2000);
+            journal.append(JournalRecord.Type.UPDATE, 102, "kumar2", 3000);
+            journal.takeUnapplied(2, 0, TimeUnit.MILLISECONDS);
+            journal.markApplied(2);
+        }
+
+        try (CashCardJournal journal = new CashCardJournal(file, SIZE)) {
+            Assertions.assertThat(takeAll(journal)).containsExactly(
+                    new JournalRecord(3, JournalRecord.Type.UPDATE, 102, "kumar2", 3000));
+        }
+    }
+
+    @Test
+    void shouldStopReplayAtATornRecordAndContinueTheSequenceFromThere() throws Exception {
+        Path file = directory.resolve("cashcard.journal");
+        try (CashCardJournal journal = new CashCardJournal(file, SIZE)) {
+            journal.append(JournalRecord.Type.UPDATE, 99, "sarah1", 1000);
+            journal.append(JournalRecord.Type.UPDATE, 101, "sarah1", 2000);
+            journal.append(JournalRecord.Type.UPDATE, 102, "kumar2", 3000);
+        }
+        tearLastRecord(file);
+
+        try (CashCardJournal journal = new CashCardJournal(file, SIZE)) {
+            Assertions.assertThat(takeAll(journal)).extracting(JournalRecord::sequence).containsExactly(1L, 2L);
+
+            JournalRecord next = journal.append(JournalRecord.Type.DELETE, 101, "sarah1", 0);
+            Assertions.assertThat(next.sequence()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    void shouldReuseTheFileOnceEverythingIsAppliedWithoutReplayingOldRecords() throws Exception {
+        Path file = directory.resolve("cashcard.journal");
+        int size = 256;
+        try (CashCardJournal journal = new CashCardJournal(file, size)) {
+            for (int round = 0; round < 20; round++) {
+                JournalRecord record = journal.append(JournalRecord.Type.UPDATE, round, "sarah1", round);
+                journal.append(JournalRecord.Type.UPDATE, round, "sarah1", round + 1);
+                journal.takeUnapplied(2, 0, TimeUnit.MILLISECONDS);
+                journal.markApplied(record.sequence() + 1);
+            }
+            journal.append(JournalRecord.Type.DELETE, 7, "sarah1", 0);
+        }
+
+        try (CashCardJournal journal = new CashCardJournal(file, size)) {
+            Assertions.assertThat(takeAll(journal)).containsExactly(
+                    new JournalRecord(41, JournalRecord.Type.DELETE, 7, "sarah1", 0));
+        }
+    }
+
+    private static List<JournalRecord> takeAll(CashCardJournal journal) throws InterruptedException {
+        return journal.takeUnapplied(Integer.MAX_VALUE, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Flips a byte in the owner of the last record, as if the process died
+     * while the page holding it was only partly written.
+     */
+    private static void tearLastRecord(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer lengths = ByteBuffer.allocate(Integer.BYTES);
+            long offset = Long.BYTES;
+            while (true) {
+                lengths.clear();
+                channel.read(lengths, offset);
+                int length = lengths.flip().getInt();
+                if (length == 0) {
+                    break;
+                }
+                offset += 2 * Integer.BYTES + length;
+            }
+
+            ByteBuffer tail = ByteBuffer.allocate(1);
+            channel.read(tail, offset - 1);
+            tail.put(0, (byte) (tail.get(0) ^ 0xff)).rewind();
+            channel.write(tail, offset - 1);
+        }
+    }
+
+}
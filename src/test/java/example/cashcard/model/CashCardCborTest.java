@@ -0,0 +1,54 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import java.io.IOException;
+import java.math.BigDecimal;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+public class CashCardCborTest {
+
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+
+    @Test
+    void shouldWriteTheAmountAsADecimal() throws IOException {
+        JsonNode cashCard = cborMapper.readTree(cborMapper.writeValueAsBytes(new CashCard(99L, 12345L, "sarah1")));
+
+        Assertions.assertThat(cashCard.get("id").asLong()).isEqualTo(99L);
+        Assertions.assertThat(cashCard.get("amount").isBigDecimal()).isTrue();
+        Assertions.assertThat(cashCard.get("amount").decimalValue()).isEqualTo(new BigDecimal("123.45"));
+        Assertions.assertThat(cashCard.get("owner").asText()).isEqualTo("sarah1");
+        Assertions.assertThat(cashCard.has("version")).isFalse();
+    }
+
+    @Test
+    void shouldRoundTripAmountsWithoutLosingCents() throws IOException {
+        for (long cents : new long[]{0L, 1L, 10L, 12345L, -250L, Long.MAX_VALUE}) {
+            CashCard cashCard = new CashCard(1L, cents, "sarah1");
+
+            Assertions.assertThat(cborMapper.readValue(cborMapper.writeValueAsBytes(cashCard), CashCard.class))
+                    .isEqualTo(cashCard);
+        }
+    }
+
+    @Test
+    void shouldReadAnAmountSentAsAFloatingPointNumber() throws IOException {
+        byte[] cbor = cborMapper.writeValueAsBytes(cborMapper.createObjectNode()
+                .put("id", 99)
+                .put("amount", 123.45)
+                .put("owner", "sarah1"));
+
+        Assertions.assertThat(cborMapper.readValue(cbor, CashCard.class).amount()).isEqualTo(12345L);
+    }
+
+}
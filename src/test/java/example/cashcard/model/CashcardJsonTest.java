@@ -4,6 +4,7 @@
  */
 package example.cashcard.model;
 
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 import java.io.IOException;
 import org.assertj.core.api.Assertions;
 import org.assertj.core.util.Arrays;
@@ -31,9 +32,9 @@ public class CashcardJsonTest {
     @BeforeEach
     void setUp() {
         cashCards = Arrays.array(
-                new CashCard(99L, 123.45, "sarah1"),
-                new CashCard(100L, 1.00, "sarah1"),
-                new CashCard(101L, 150.00, "sarah1"));
+                new CashCard(99L, 12345L, "sarah1"),
+                new CashCard(100L, 100L, "sarah1"),
+                new CashCard(101L, 15000L, "sarah1"));
     }
 
     @Test
@@ -58,9 +59,46 @@ public class CashcardJsonTest {
                           }
                           """;
 
-        Assertions.assertThat(jsonTester.parse(expected)).isEqualTo(new CashCard(99L, 123.45, "sarah1"));
+        Assertions.assertThat(jsonTester.parse(expected)).isEqualTo(new CashCard(99L, 12345L, "sarah1"));
         Assertions.assertThat(jsonTester.parseObject(expected).id()).isEqualTo(99);
-        Assertions.assertThat(jsonTester.parseObject(expected).amount()).isEqualTo(123.45);
+        Assertions.assertThat(jsonTester.parseObject(expected).amount()).isEqualTo(12345L);
+    }
+
+    @Test
+    void cashCardAmountIsReadExactlyIntoCentsTest() throws IOException {
+        Assertions.assertThat(jsonTester.parseObject("{\"amount\": 0.29}").amount()).isEqualTo(29L);
+        Assertions.assertThat(jsonTester.parseObject("{\"amount\": 7}").amount()).isEqualTo(700L);
+        Assertions.assertThat(jsonTester.parseObject("{\"amount\": -1.5}").amount()).isEqualTo(-150L);
+        Assertions.assertThat(jsonTester.parseObject("{\"amount\": 1.2300}").amount()).isEqualTo(123L);
+        Assertions.assertThat(jsonTester.parseObject("{\"amount\": 1.5E2}").amount()).isEqualTo(15000L);
+        Assertions.assertThat(jsonTester.parseObject("{\"amount\": 92233720368547758.07}").amount())
+                .isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void cashCardAmountWithFractionsOfACentIsRejectedTest() {
+        Assertions.assertThatThrownBy(() -> jsonTester.parseObject("{\"amount\": 1.234}"))
+                .isInstanceOf(InvalidFormatException.class);
+    }
+
+    @Test
+    void cashCardAmountWithAHugeExponentIsRejectedQuicklyTest() throws IOException {
+        Assertions.assertThat(jsonTester.parseObject("{\"amount\": 0e10000000}").amount()).isZero();
+        Assertions.assertThat(jsonTester.parseObject("{\"amount\": 1.5000E-1}").amount()).isEqualTo(15L);
+
+        long start = System.nanoTime();
+        for (String amount : new String[]{"1e10000000", "-1e10000000", "1e-10000000", "1e20"}) {
+            Assertions.assertThatThrownBy(() -> jsonTester.parseObject("{\"amount\": " + amount + "}"))
+                    .isInstanceOf(InvalidFormatException.class);
+        }
+        Assertions.assertThat(System.nanoTime() - start).isLessThan(1_000_000_000L);
+    }
+
+    @Test
+    void cashCardAmountIsWrittenWithTwoDecimalsTest() throws IOException {
+        Assertions.assertThat(jsonTester.write(new CashCard(1L, 5L, "sarah1"))).isEqualToJson("{\"amount\": 0.05}");
+        Assertions.assertThat(jsonTester.write(new CashCard(1L, -5L, "sarah1"))).isEqualToJson("{\"amount\": -0.05}");
+        Assertions.assertThat(MinorUnits.format(Long.MIN_VALUE)).isEqualTo("-92233720368547758.08");
     }
 
     @Test
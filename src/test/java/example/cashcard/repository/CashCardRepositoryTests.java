@@ -0,0 +1,89 @@
+package example.cashcard.repository;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest
+class CashCardRepositoryTests {
+
+    private static final String OWNER_INDEX = "IDX_CASH_CARD_OWNER_AMOUNT_ID";
+
+    private static final String INDEX_SORTED = "index sorted";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    CashCardRepository cashCardRepository;
+
+    @Test
+    void shouldPageByOwnerThroughTheOwnerIndexWithTheGeneratedQuery() {
+        String sql = generatedSql(() -> cashCardRepository.findByOwner("sarah1",
+                PageRequest.of(1, 20, Sort.by("owner").and(Sort.by(Sort.Direction.ASC, "amount", "id")))));
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, "sarah1");
+
+        Assertions.assertThat(plan).contains(OWNER_INDEX, INDEX_SORTED).doesNotContain("tableScan");
+    }
+
+    @Test
+    void shouldFindCardsByOwnerInAmountOrderThroughTheOwnerIndex() {
+        String plan = explain("SELECT * FROM cash_card WHERE owner = 'sarah1' ORDER BY owner, amount, id LIMIT 20");
+
+        Assertions.assertThat(plan).contains(OWNER_INDEX, INDEX_SORTED).doesNotContain("tableScan");
+    }
+
+    @Test
+    void shouldSeekPastACursorThroughTheOwnerIndex() {
+        String plan = explain("""
+                              SELECT * FROM cash_card
+                              WHERE owner = 'sarah1' AND amount >= 100 AND (amount > 100 OR id > 100)
+                              ORDER BY owner, amount, id LIMIT 20
+                              """);
+
+        Assertions.assertThat(plan).contains(OWNER_INDEX, "AMOUNT >=", INDEX_SORTED).doesNotContain("tableScan");
+    }
+
+    @Test
+    void shouldNotScanTheTableForOwnerScopedLookups() {
+        Assertions.assertThat(explain("SELECT * FROM cash_card WHERE id = 99 AND owner = 'sarah1'"))
+                .doesNotContain("tableScan");
+        Assertions.assertThat(explain("UPDATE cash_card SET amount = 1 WHERE id = 99 AND owner = 'sarah1'"))
+                .doesNotContain("tableScan");
+        Assertions.assertThat(explain("DELETE FROM cash_card WHERE id = 99 AND owner = 'sarah1'"))
+                .doesNotContain("tableScan");
+    }
+
+    @Test
+    void shouldCountCardsByOwnerThroughTheOwnerIndex() {
+        String plan = explain("SELECT COUNT(*) FROM cash_card WHERE owner = 'sarah1'");
+
+        Assertions.assertThat(plan).contains(OWNER_INDEX);
+    }
+
+    /**
+     * The statement Spring Data ran for {@code query}, as H2 recorded it, with
+     * its parameters as {@code ?}.
+     */
+    private String generatedSql(Runnable query) {
+        jdbcTemplate.execute("SET QUERY_STATISTICS TRUE");
+        try {
+            query.run();
+            return jdbcTemplate.queryForObject("""
+                                               SELECT SQL_STATEMENT FROM INFORMATION_SCHEMA.QUERY_STATISTICS
+                                               WHERE SQL_STATEMENT LIKE '%"OWNER" = ?%'
+                                               """, String.class);
+        } finally {
+            jdbcTemplate.execute("SET QUERY_STATISTICS FALSE");
+        }
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+    }
+
+}
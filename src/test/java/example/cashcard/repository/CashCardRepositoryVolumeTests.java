@@ -0,0 +1,88 @@
+package example.cashcard.repository;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Tag("large-volume")
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:cashcard-volume;DB_CLOSE_DELAY=-1")
+class CashCardRepositoryVolumeTests {
+
+    private static final String OWNER = "volume1";
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final int RUNS = 15;
+
+    private static final long MAX_PAGE_MILLIS = 20;
+
+    private static final Sort SORT = Sort.by(Sort.Direction.ASC, "owner", "amount", "id");
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    CashCardRepository cashCardRepository;
+
+    @Value("${cashcard.volume.cards:2000000}")
+    int cards;
+
+    @BeforeEach
+    void seedCards() {
+        jdbcTemplate.update("""
+                            INSERT INTO cash_card (amount, owner)
+                            SELECT MOD(X * 7919, 1000000), ? FROM SYSTEM_RANGE(1, ?)
+                            """, OWNER, cards);
+    }
+
+    @Test
+    void shouldReadPagesOfAnOwnerWithMillionsOfCardsInMilliseconds() {
+        Map<String, Object> deepCursor = jdbcTemplate.queryForMap(
+                "SELECT amount, id FROM cash_card WHERE owner = ? ORDER BY owner, amount, id LIMIT 1 OFFSET ?",
+                OWNER, cards - PAGE_SIZE);
+        long deepAmount = ((Number) deepCursor.get("AMOUNT")).longValue();
+        long deepId = ((Number) deepCursor.get("ID")).longValue();
+
+        double firstPage = medianMillis(() -> cashCardRepository.findByOwner(OWNER,
+                PageRequest.of(0, PAGE_SIZE, SORT)).getContent());
+        double deepKeysetPage = medianMillis(() -> cashCardRepository.findByOwnerAfter(OWNER, deepAmount, deepId,
+                PAGE_SIZE + 1));
+        double deepOffsetPage = medianMillis(() -> cashCardRepository.findByOwner(OWNER,
+                PageRequest.of(cards / PAGE_SIZE - 1, PAGE_SIZE, SORT)).getContent());
+        double summary = medianMillis(() -> List.of(cashCardRepository.summarizeByOwner(OWNER)));
+        System.out.printf("%d cards: first page %.2f ms, deep keyset page %.2f ms, deep offset page %.2f ms,"
+                + " summary %.2f ms%n", cards, firstPage, deepKeysetPage, deepOffsetPage, summary);
+
+        Assertions.assertThat(firstPage).isLessThan(MAX_PAGE_MILLIS);
+        Assertions.assertThat(deepKeysetPage).isLessThan(MAX_PAGE_MILLIS);
+    }
+
+    /**
+     * Median of {@value #RUNS} runs after a warm-up one. A card outside the
+     * page changes before every run, or H2 would hand back the previous result.
+     */
+    private double medianMillis(Supplier<List<?>> query) {
+        query.get();
+        long[] nanos = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            jdbcTemplate.update("UPDATE cash_card SET version = version + 1 WHERE id = 99");
+            long start = System.nanoTime();
+            Assertions.assertThat(query.get()).isNotEmpty();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[RUNS / 2] / 1e6;
+    }
+
+}
@@ -0,0 +1,166 @@
+package example.cashcard.repository;
+
+import example.cashcard.model.CashCard;
+import example.cashcard.repository.CashCardJdbcRepository.TransferResult;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest
+class CashCardTransferTests {
+
+    private static final String OWNER = "transfer-stress";
+
+    private static final int CARDS = 4;
+
+    private static final long FIRST_ID = 500;
+
+    private static final long INITIAL_AMOUNT = 10_000;
+
+    private static final int THREADS = 8;
+
+    private static final long DURATION_NANOS = 2_000_000_000L;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    CashCardJdbcRepository cashCardJdbcRepository;
+
+    @BeforeEach
+    void insertCards() {
+        for (int i = 0; i < CARDS; i++) {
+            jdbcTemplate.update("INSERT INTO cash_card(id, amount, owner) VALUES (?, ?, ?)",
+                    FIRST_ID + i, INITIAL_AMOUNT, OWNER);
+        }
+    }
+
+    @AfterEach
+    void deleteCards() {
+        jdbcTemplate.update("DELETE FROM cash_card WHERE owner = ?", OWNER);
+    }
+
+    @Test
+    void shouldConserveTheTotalBalanceUnderContendedTransfersInBothDirections() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Long>> workers = new ArrayList<>();
+        long deadline = System.nanoTime() + DURATION_NANOS;
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                workers.add(executor.submit(() -> transferUntil(deadline)));
+            }
+
+            long transferred = 0;
+            for (Future<Long> worker : workers) {
+                transferred += worker.get();
+            }
+            System.out.printf("%d transfers among %d cards by %d threads, %.0f transfers/s%n", transferred, CARDS,
+                    THREADS, transferred * 1e9 / DURATION_NANOS);
+            Assertions.assertThat(transferred).isPositive();
+        } finally {
+            executor.shutdown();
+        }
+
+        Assertions.assertThat(jdbcTemplate.queryForObject("SELECT SUM(amount) FROM cash_card WHERE owner = ?",
+                Long.class, OWNER)).isEqualTo(CARDS * INITIAL_AMOUNT);
+        Assertions.assertThat(jdbcTemplate.queryForObject("SELECT MIN(amount) FROM cash_card WHERE owner = ?",
+                Long.class, OWNER)).isNotNegative();
+    }
+
+    @Test
+    void shouldNotTransferBetweenCardsOfAnotherOwner() {
+        TransferResult result = cashCardJdbcRepository.transfer(FIRST_ID, FIRST_ID + 1, "sarah1", 1);
+
+        Assertions.assertThat(result.outcome()).isEqualTo(TransferResult.Outcome.NOT_FOUND);
+        Assertions.assertThat(jdbcTemplate.queryForObject("SELECT SUM(amount) FROM cash_card WHERE owner = ?",
+                Long.class, OWNER)).isEqualTo(CARDS * INITIAL_AMOUNT);
+    }
+
+    @Test
+    void shouldNotTransferPastTheLargestBalance() {
+        jdbcTemplate.update("UPDATE cash_card SET amount = ? WHERE id = ?", Long.MAX_VALUE - 5, FIRST_ID + 1);
+
+        TransferResult result = cashCardJdbcRepository.transfer(FIRST_ID, FIRST_ID + 1, OWNER, 10);
+
+        Assertions.assertThat(result.outcome()).isEqualTo(TransferResult.Outcome.BALANCE_OVERFLOW);
+        Assertions.assertThat(jdbcTemplate.queryForObject("SELECT amount FROM cash_card WHERE id = ?",
+                Long.class, FIRST_ID)).isEqualTo(INITIAL_AMOUNT);
+        Assertions.assertThat(jdbcTemplate.queryForObject("SELECT amount FROM cash_card WHERE id = ?",
+                Long.class, FIRST_ID + 1)).isEqualTo(Long.MAX_VALUE - 5);
+        Assertions.assertThat(cashCardJdbcRepository.transfer(FIRST_ID, FIRST_ID + 1, OWNER, 5).outcome())
+                .isEqualTo(TransferResult.Outcome.TRANSFERRED);
+    }
+
+    @Test
+    void shouldNotDeadlockBatchesInDescendingIdOrderWithTransfers() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Long>> workers = new ArrayList<>();
+        long deadline = System.nanoTime() + DURATION_NANOS;
+        try {
+            for (int i = 0; i < THREADS / 2; i++) {
+                workers.add(executor.submit(() -> transferUntil(deadline)));
+                workers.add(executor.submit(() -> updateInDescendingIdOrderUntil(deadline)));
+            }
+
+            for (Future<Long> worker : workers) {
+                Assertions.assertThat(worker.get()).isPositive();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldCountBatchUpdatesAndDeletesInRequestOrder() {
+        int[] updated = cashCardJdbcRepository.updateAll(List.of(new CashCard(FIRST_ID + 1, 1L, OWNER),
+                new CashCard(999_999L, 1L, OWNER), new CashCard(FIRST_ID, 1L, OWNER)));
+        Assertions.assertThat(updated).containsExactly(1, 0, 1);
+
+        int[] deleted = cashCardJdbcRepository.deleteAll(List.of(999_999L, FIRST_ID + 3, FIRST_ID + 2), OWNER);
+        Assertions.assertThat(deleted).containsExactly(0, 1, 1);
+    }
+
+    private long transferUntil(long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long transferred = 0;
+        while (System.nanoTime() < deadline) {
+            long from = FIRST_ID + random.nextInt(CARDS);
+            long to = FIRST_ID + (from - FIRST_ID + 1 + random.nextInt(CARDS - 1)) % CARDS;
+            TransferResult result = cashCardJdbcRepository.transfer(from, to, OWNER,
+                    1 + random.nextLong(INITIAL_AMOUNT));
+            Assertions.assertThat(result.outcome()).isNotEqualTo(TransferResult.Outcome.NOT_FOUND);
+            if (result.outcome() == TransferResult.Outcome.TRANSFERRED) {
+                transferred++;
+            }
+        }
+        return transferred;
+    }
+
+    /**
+     * Rewrites every card's amount, highest id first, leaving the total as it
+     * was.
+     */
+    private long updateInDescendingIdOrderUntil(long deadline) {
+        long updates = 0;
+        while (System.nanoTime() < deadline) {
+            List<CashCard> cashCards = new ArrayList<>(CARDS);
+            for (int i = CARDS - 1; i >= 0; i--) {
+                cashCards.add(new CashCard(FIRST_ID + i, INITIAL_AMOUNT, OWNER));
+            }
+            Assertions.assertThat(cashCardJdbcRepository.updateAll(cashCards)).containsOnly(1);
+            updates++;
+        }
+        return updates;
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.security;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+public class CachingPasswordEncoderTest {
+
+    private final AtomicInteger delegateChecks = new AtomicInteger();
+
+    private CachingPasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void setUp() {
+        PasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+        PasswordEncoder countingEncoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return bcrypt.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                delegateChecks.incrementAndGet();
+                return bcrypt.matches(rawPassword, encodedPassword);
+            }
+        };
+
+        passwordEncoder = new CachingPasswordEncoder(countingEncoder, 100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void shouldVerifyMatchingCredentialsOnlyOnce() {
+        String encoded = passwordEncoder.encode("abc123");
+
+        Assertions.assertThat(passwordEncoder.matches("abc123", encoded)).isTrue();
+        Assertions.assertThat(passwordEncoder.matches("abc123", encoded)).isTrue();
+
+        Assertions.assertThat(delegateChecks.get()).isEqualTo(1);
+        Assertions.assertThat(passwordEncoder.getCache().stats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotCacheRejectedCredentials() {
+        String encoded = passwordEncoder.encode("abc123");
+
+        Assertions.assertThat(passwordEncoder.matches("BAD-CREDENTIALS", encoded)).isFalse();
+        Assertions.assertThat(passwordEncoder.matches("BAD-CREDENTIALS", encoded)).isFalse();
+
+        Assertions.assertThat(delegateChecks.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldVerifyAgainWhenThePasswordChanges() {
+        String encoded = passwordEncoder.encode("abc123");
+        Assertions.assertThat(passwordEncoder.matches("abc123", encoded)).isTrue();
+
+        String changed = passwordEncoder.encode("xyz789");
+        Assertions.assertThat(passwordEncoder.matches("abc123", changed)).isFalse();
+        Assertions.assertThat(passwordEncoder.matches("xyz789", changed)).isTrue();
+
+        Assertions.assertThat(delegateChecks.get()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldVerifyAgainAfterInvalidation() {
+        String encoded = passwordEncoder.encode("abc123");
+        Assertions.assertThat(passwordEncoder.matches("abc123", encoded)).isTrue();
+
+        passwordEncoder.invalidateAll();
+        Assertions.assertThat(passwordEncoder.matches("abc123", encoded)).isTrue();
+
+        Assertions.assertThat(delegateChecks.get()).isEqualTo(2);
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.security;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+/**
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+public class CachingUserDetailsServiceTest {
+
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    private String storedPassword = "{noop}abc123";
+
+    private final CachingUserDetailsService userDetailsService = new CachingUserDetailsService(username -> {
+        lookups.incrementAndGet();
+        if (!username.equals("sarah1")) {
+            throw new UsernameNotFoundException(username);
+        }
+        return User.withUsername(username).password(storedPassword).roles("CARD-OWNER").build();
+    }, 100, Duration.ofMinutes(5));
+
+    @Test
+    void shouldLookUpAUserOnlyOnceWhileItIsCached() {
+        userDetailsService.loadUserByUsername("sarah1");
+        UserDetails user = userDetailsService.loadUserByUsername("sarah1");
+
+        Assertions.assertThat(lookups).hasValue(1);
+        Assertions.assertThat(user.getAuthorities()).extracting("authority").containsExactly("ROLE_CARD-OWNER");
+    }
+
+    @Test
+    void shouldKeepThePasswordOfTheCachedUserWhenACopyIsErased() {
+        ((User) userDetailsService.loadUserByUsername("sarah1")).eraseCredentials();
+
+        Assertions.assertThat(userDetailsService.loadUserByUsername("sarah1").getPassword()).isEqualTo("{noop}abc123");
+    }
+
+    @Test
+    void shouldLoadAUserAgainOnceItIsInvalidated() {
+        userDetailsService.loadUserByUsername("sarah1");
+        storedPassword = "{noop}changed";
+        userDetailsService.invalidate("sarah1");
+
+        Assertions.assertThat(userDetailsService.loadUserByUsername("sarah1").getPassword()).isEqualTo("{noop}changed");
+        Assertions.assertThat(lookups).hasValue(2);
+    }
+
+    @Test
+    void shouldNotCacheUnknownUsers() {
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertThatThrownBy(() -> userDetailsService.loadUserByUsername("nobody"))
+                    .isInstanceOf(UsernameNotFoundException.class);
+        }
+
+        Assertions.assertThat(lookups).hasValue(2);
+    }
+
+}
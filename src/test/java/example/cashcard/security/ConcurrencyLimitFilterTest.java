@@ -0,0 +1,72 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+public class ConcurrencyLimitFilterTest {
+
+    private final Counter rejected = new SimpleMeterRegistry().counter("rejected");
+
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, rejected);
+
+    @Test
+    void shouldShedRequestsBeyondTheLimitWhileOneIsInFlight() throws Exception {
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(),
+                (request, response) -> filter.doFilter(new MockHttpServletRequest(), shed, (inner, innerResponse) -> {
+                    throw new AssertionError("should have been shed");
+                }));
+
+        Assertions.assertThat(shed.getStatus()).isEqualTo(503);
+        Assertions.assertThat(shed.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        Assertions.assertThat(rejected.count()).isEqualTo(1);
+        Assertions.assertThat(filter.getInFlight()).isZero();
+    }
+
+    @Test
+    void shouldHoldThePermitOfAnAsyncRequestUntilItCompletes() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (servletRequest, servletResponse)
+                -> servletRequest.startAsync());
+        Assertions.assertThat(filter.getInFlight()).isEqualTo(1);
+
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest(), shed, (inner, innerResponse) -> {
+        });
+        Assertions.assertThat(shed.getStatus()).isEqualTo(503);
+
+        request.getAsyncContext().complete();
+        Assertions.assertThat(filter.getInFlight()).isZero();
+    }
+
+    @Test
+    void shouldReleaseThePermitOfAnIdleStreamOnceTheControllerReturns() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (servletRequest, servletResponse) -> {
+            servletRequest.setAttribute(ConcurrencyLimitFilter.IDLE_STREAM_ATTRIBUTE, Boolean.TRUE);
+            servletRequest.startAsync();
+        });
+
+        Assertions.assertThat(request.isAsyncStarted()).isTrue();
+        Assertions.assertThat(filter.getInFlight()).isZero();
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package example.cashcard.security;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author DGIE - J72 Aprovisionamiento de Tecnología y Datos Económicos
+ */
+public class OwnerRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private final OwnerRateLimiter rateLimiter
+            = new OwnerRateLimiter(10, 3, 2, Duration.ofMinutes(1), now::get);
+
+    @Test
+    void shouldAllowABurstAndThenTellHowLongToWait() {
+        Assertions.assertThat(rateLimiter.tryAcquire("sarah1")).isZero();
+        Assertions.assertThat(rateLimiter.tryAcquire("sarah1")).isZero();
+        Assertions.assertThat(rateLimiter.tryAcquire("sarah1")).isZero();
+
+        Assertions.assertThat(rateLimiter.tryAcquire("sarah1")).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    void shouldRefillAtTheConfiguredRate() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("sarah1");
+        }
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        Assertions.assertThat(rateLimiter.tryAcquire("sarah1")).isZero();
+        Assertions.assertThat(rateLimiter.tryAcquire("sarah1")).isPositive();
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertThat(rateLimiter.tryAcquire("sarah1")).isZero();
+        }
+        Assertions.assertThat(rateLimiter.tryAcquire("sarah1")).isPositive();
+    }
+
+    @Test
+    void shouldLimitEveryOwnerSeparately() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("sarah1");
+        }
+
+        Assertions.assertThat(rateLimiter.tryAcquire("sarah1")).isPositive();
+        Assertions.assertThat(rateLimiter.tryAcquire("kumar2")).isZero();
+    }
+
+    @Test
+    void shouldForgetIdleOwnersAndKeepABoundedNumberOfBuckets() {
+        rateLimiter.tryAcquire("sarah1");
+        rateLimiter.tryAcquire("kumar2");
+        rateLimiter.tryAcquire("hank-owns-no-cards");
+        rateLimiter.getBuckets().cleanUp();
+        Assertions.assertThat(rateLimiter.getBuckets().estimatedSize()).isLessThanOrEqualTo(2);
+
+        now.addAndGet(TimeUnit.MINUTES.toNanos(2));
+        rateLimiter.getBuckets().cleanUp();
+        Assertions.assertThat(rateLimiter.getBuckets().estimatedSize()).isZero();
+    }
+
+}
@@ -0,0 +1,10 @@
+-- Passwords are abc123, qrs456, xyz789 and ops123, BCrypt-encoded.
+INSERT INTO USERS(USERNAME, PASSWORD, ENABLED) VALUES ('sarah1', '$2a$10$fKiHBvcY.ALZ38RsvuQzOO297BgyftaU9s1LeCcuPk/7lpv9I6sYu', TRUE);
+INSERT INTO USERS(USERNAME, PASSWORD, ENABLED) VALUES ('hank-owns-no-cards', '$2a$10$4B0B6nxkfac5fc1dLztl4O7ruYVb5RsZ32rjyFnQScP2T3uyHXs6i', TRUE);
+INSERT INTO USERS(USERNAME, PASSWORD, ENABLED) VALUES ('kumar2', '$2a$10$ENY9W9Kt.NE5y4C4waca5eM5YLByZCWE6jFToqJ5PFKVlycnhk5/y', TRUE);
+INSERT INTO USERS(USERNAME, PASSWORD, ENABLED) VALUES ('ops1', '$2a$10$ltAlFXczTtjI6qjSCUbdFOHkQkxLGQTvVEa.oZspsM5IFTqK3kNm.', TRUE);
+
+INSERT INTO AUTHORITIES(USERNAME, AUTHORITY) VALUES ('sarah1', 'ROLE_CARD-OWNER');
+INSERT INTO AUTHORITIES(USERNAME, AUTHORITY) VALUES ('hank-owns-no-cards', 'ROLE_NON-OWNER');
+INSERT INTO AUTHORITIES(USERNAME, AUTHORITY) VALUES ('kumar2', 'ROLE_CARD-OWNER');
+INSERT INTO AUTHORITIES(USERNAME, AUTHORITY) VALUES ('ops1', 'ROLE_ACTUATOR');